@@ -0,0 +1,170 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import com.mongodb.client.MongoDatabase;
+import com.objective.threesixty.Document;
+import com.objective.threesixty.MetadataType;
+import com.objective.threesixty.StringArray;
+import com.objective.threesixty.Value;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import com.objective.threesixty.remoteagent.sdk.utils.ValueUtils;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+
+// Synthetic documents and agent components shared by the benchmarks and the load test
+final class MongoDBFixtures {
+
+    // Size of the buffers a binary is split into, as the SDK streams it
+    static final int BUFFER_SIZE = 8192;
+
+    private MongoDBFixtures() {
+    }
+
+    // A document as received from the source repository
+    static Document document(int index, long size) {
+        return Document.newBuilder()
+                .setId("source-" + index)
+                .setName("document" + index + ".bin")
+                .setParentPath("/fixtures/" + index % 100)
+                .setMimeType("application/octet-stream")
+                .setSize(size)
+                .setCreatedDate(timestamp(index))
+                .setModifiedDate(timestamp(index + 1))
+                .build();
+    }
+
+    // Metadata with the given number of entries, cycling through the metadata value types
+    static Map<String, MetadataType> metadata(int index, int width) {
+        Map<String, MetadataType> metadata = new LinkedHashMap<>();
+        for (int i = 0; i < width; i++) {
+            MetadataType.Builder value = MetadataType.newBuilder();
+            switch (i % 8) {
+                case 0 -> value.setString("value-" + index + "-" + i);
+                case 1 -> value.setLong(index * 1_000_003L + i);
+                case 2 -> value.setInteger(i);
+                case 3 -> value.setDouble((index + i) / 7.0);
+                case 4 -> value.setBoolean((index + i) % 2 == 0);
+                case 5 -> value.setDateTime(timestamp(index + i));
+                case 6 -> value.setBinary(ByteString.copyFromUtf8("binary-" + index + "-" + i));
+                default -> value.setArray(StringArray.newBuilder().addValues("a" + index).addValues("b" + i));
+            }
+            metadata.put("field" + i, value.build());
+        }
+        return metadata;
+    }
+
+    static Timestamp timestamp(int index) {
+        return Timestamp.newBuilder().setSeconds(1_700_000_000L + index).setNanos(index % 1000 * 1000).build();
+    }
+
+    // Job parameters for a collection, read by a single cursor unless scanPartitions is greater than one
+    static CustomParameters parameters(String uri, String database, String collection, boolean gridFS, int scanPartitions) {
+        Map<String, Value> values = new HashMap<>();
+        values.put(URI, ValueUtils.stringValue(uri));
+        values.put(DB, ValueUtils.stringValue(database));
+        values.put(COLLECTION, ValueUtils.stringValue(collection));
+        values.put(USE_GRIDFS, ValueUtils.booleanValue(gridFS));
+        values.put(ID_FIELD, ValueUtils.stringValue(""));
+        values.put(QUERY, ValueUtils.stringValue("{}"));
+        values.put(SCAN_PARTITIONS, ValueUtils.intValue(scanPartitions));
+        return new CustomParameters(values);
+    }
+
+    // The reader and writer with the components Spring would inject, connected to the given MongoDB,
+    // or to an in-process stand-in when no uri is given so they run without a MongoDB deployment
+    static final class Agent implements AutoCloseable {
+        private final MongoServer server;
+        private final String uri;
+        final MongoDBProperties properties;
+        final MongoDBMetrics metrics = new MongoDBMetrics(new SimpleMeterRegistry());
+        final MongoDBClientManager clientManager;
+
+        Agent() {
+            this(null, new MongoDBProperties());
+        }
+
+        Agent(String uri, MongoDBProperties properties) {
+            if (uri == null) {
+                this.server = new MongoServer(new MemoryBackend());
+                InetSocketAddress address = server.bind();
+                this.uri = "mongodb://" + address.getHostString() + ":" + address.getPort();
+            } else {
+                this.server = null;
+                this.uri = uri;
+            }
+            this.properties = properties;
+            this.clientManager = new MongoDBClientManager(properties, metrics);
+        }
+
+        String uri() {
+            return uri;
+        }
+
+        MongoDBWriter writer() {
+            return new MongoDBWriter(clientManager, new MongoDBBulkInserter(clientManager, properties), metrics, properties);
+        }
+
+        MongoDBReader reader() {
+            return new MongoDBReader(clientManager, new MongoDBCheckpointStore(properties), metrics, new MongoDBSchedulers(properties), properties);
+        }
+
+        // Remove the collection, and the files and chunks collections if it is a GridFS bucket
+        void drop(String database, String collection) {
+            MongoDatabase db = clientManager.acquire(uri).getDatabase(database);
+            try {
+                List<String> names = List.of(collection, collection + FILES_SUFFIX, collection + CHUNKS_SUFFIX);
+                for (String name : db.listCollectionNames()) {
+                    if (names.contains(name)) {
+                        db.getCollection(name).drop();
+                    }
+                }
+            } finally {
+                clientManager.release(uri);
+            }
+        }
+
+        @Override
+        public void close() {
+            clientManager.destroy();
+            if (server != null) {
+                server.shutdownNow();
+            }
+        }
+    }
+}
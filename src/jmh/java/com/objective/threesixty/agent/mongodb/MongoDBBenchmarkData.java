@@ -0,0 +1,77 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+import static com.objective.threesixty.agent.mongodb.MongoDBFixtures.BUFFER_SIZE;
+
+// Test data used only by the benchmarks, the documents, metadata and agent components are in MongoDBFixtures
+final class MongoDBBenchmarkData {
+
+    static final String DATABASE = "benchmark";
+
+    private MongoDBBenchmarkData() {
+    }
+
+    // A MongoDB document, or GridFS metadata document, with the given number of fields as stored by the writer
+    static org.bson.Document storedDocument(int index, int width) {
+        org.bson.Document doc = new org.bson.Document();
+        for (int i = 0; i < width; i++) {
+            doc.put("field" + i, "value-" + index + "-" + i);
+        }
+        doc.put(SIMFLOFY_FILENAME_FIELD, "document" + index + ".txt");
+        doc.put(SIMFLOFY_CONTENT_TYPE_FIELD, "text/plain");
+        doc.put(SIMFLOFY_LENGTH_FIELD, 1024L);
+        return doc;
+    }
+
+    // Random binary content split into buffers, built once so every invocation uploads the same bytes
+    static List<byte[]> binary(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        List<byte[]> buffers = new ArrayList<>();
+        for (int offset = 0; offset < size; offset += BUFFER_SIZE) {
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, size - offset)];
+            System.arraycopy(content, offset, buffer, 0, buffer.length);
+            buffers.add(buffer);
+        }
+        return buffers;
+    }
+
+    // Wrap the buffers as the Flux<DataBuffer> the SDK passes to the writer
+    static Flux<DataBuffer> dataBuffers(List<byte[]> buffers) {
+        return Flux.fromIterable(buffers).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+}
@@ -0,0 +1,162 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.Document;
+import com.objective.threesixty.MetadataType;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Reader scans and writer inserts end to end, against the in-process MongoDB stand-in.
+// The stand-in is much slower than MongoDB, so these numbers are for comparing builds rather than for capacity planning.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MongoDBEndToEndBenchmark {
+
+    // Number of documents written per insert benchmark invocation
+    private static final int INSERT_BATCH = 100;
+
+    private MongoDBFixtures.Agent agent;
+    private MongoDBWriter writer;
+    private Map<String, MetadataType> metadata;
+
+    @Param({"20"})
+    int metadataWidth;
+
+    // A collection of documents listed by the scan benchmark.
+    // Scans use a single cursor, the stand-in's $sample fails on collections large enough to partition.
+    @State(Scope.Benchmark)
+    public static class Scan {
+        @Param({"1000"})
+        int documentCount;
+
+        @Param({"false", "true"})
+        boolean gridFS;
+
+        MongoDBReader reader;
+        CustomParameters parameters;
+
+        @Setup
+        public void setup(MongoDBEndToEndBenchmark benchmark) {
+            parameters = MongoDBFixtures.parameters(benchmark.agent.uri(), MongoDBBenchmarkData.DATABASE, "scan", gridFS, 1);
+            Flux.range(0, documentCount)
+                    .flatMap(i -> benchmark.writer.writeDocument(MongoDBFixtures.document(i, 1024), benchmark.metadata,
+                            MongoDBBenchmarkData.dataBuffers(List.of(new byte[1024])), parameters))
+                    .blockLast();
+            reader = benchmark.agent.reader();
+            reader.init(parameters);
+        }
+
+        @TearDown
+        public void tearDown(MongoDBEndToEndBenchmark benchmark) {
+            benchmark.agent.drop(MongoDBBenchmarkData.DATABASE, "scan");
+        }
+    }
+
+    // Binary content uploaded to GridFS, by size in bytes
+    @State(Scope.Benchmark)
+    public static class Upload {
+        @Param({"1024", "1048576", "16777216"})
+        int binarySize;
+
+        List<byte[]> buffers;
+        CustomParameters parameters;
+
+        @Setup
+        public void setup(MongoDBEndToEndBenchmark benchmark) {
+            buffers = MongoDBBenchmarkData.binary(binarySize);
+            parameters = MongoDBFixtures.parameters(benchmark.agent.uri(), MongoDBBenchmarkData.DATABASE, "upload", true, 1);
+        }
+
+        // Start each iteration from an empty bucket, so the stand-in's memory use stays flat
+        @TearDown(Level.Iteration)
+        public void clear(MongoDBEndToEndBenchmark benchmark) {
+            benchmark.agent.drop(MongoDBBenchmarkData.DATABASE, "upload");
+        }
+    }
+
+    // Plain collection the insert benchmark writes to
+    @State(Scope.Benchmark)
+    public static class Insert {
+        CustomParameters parameters;
+
+        @Setup
+        public void setup(MongoDBEndToEndBenchmark benchmark) {
+            parameters = MongoDBFixtures.parameters(benchmark.agent.uri(), MongoDBBenchmarkData.DATABASE, "insert", false, 1);
+        }
+
+        @TearDown(Level.Iteration)
+        public void clear(MongoDBEndToEndBenchmark benchmark) {
+            benchmark.agent.drop(MongoDBBenchmarkData.DATABASE, "insert");
+        }
+    }
+
+    @Setup
+    public void setup() {
+        agent = new MongoDBFixtures.Agent();
+        writer = agent.writer();
+        metadata = MongoDBFixtures.metadata(1, metadataWidth);
+    }
+
+    @TearDown
+    public void tearDown() {
+        agent.close();
+    }
+
+    // List every document in the collection
+    @Benchmark
+    public long scan(Scan state) {
+        try (Stream<Document> documents = state.reader.getDocuments(state.parameters)) {
+            return documents.count();
+        }
+    }
+
+    // Write a batch of documents concurrently, as the SDK does, so they are gathered into bulk inserts
+    @Benchmark
+    public Document insert(Insert state) {
+        return Flux.range(0, INSERT_BATCH)
+                .flatMap(i -> writer.writeDocument(MongoDBFixtures.document(i, 0), metadata, Flux.empty(), state.parameters))
+                .blockLast();
+    }
+
+    // Upload one binary to GridFS
+    @Benchmark
+    public Document upload(Upload state) {
+        return writer.writeDocument(MongoDBFixtures.document(0, state.binarySize), metadata,
+                MongoDBBenchmarkData.dataBuffers(state.buffers), state.parameters).block();
+    }
+}
@@ -0,0 +1,76 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.MetadataType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.METADATA;
+
+// Building the metadata map returned by MongoDBReader.getDocumentMetadata from a document already read from MongoDB
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MongoDBReaderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int metadataWidth;
+
+    @Param({"false", "true"})
+    boolean gridFS;
+
+    private MongoDBFixtures.Agent agent;
+    private MongoDBReader reader;
+    private org.bson.Document document;
+
+    @Setup
+    public void setup() {
+        agent = new MongoDBFixtures.Agent();
+        reader = agent.reader();
+        reader.init(MongoDBFixtures.parameters(agent.uri(), MongoDBBenchmarkData.DATABASE, "metadata", gridFS, 1));
+
+        // GridFS keeps the metadata in the files collection entry's metadata field
+        org.bson.Document stored = MongoDBBenchmarkData.storedDocument(1, metadataWidth);
+        document = gridFS ? new org.bson.Document(METADATA, stored).append("filename", "document1.txt") : stored;
+    }
+
+    @TearDown
+    public void tearDown() {
+        agent.close();
+    }
+
+    @Benchmark
+    public Map<String, MetadataType> buildMetadata() {
+        return reader.buildMetadata("document1", document);
+    }
+}
@@ -0,0 +1,122 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.google.protobuf.Timestamp;
+import com.objective.threesixty.Document;
+import com.objective.threesixty.MetadataType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Per-document work done by MongoDBWriter before anything is sent to MongoDB
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MongoDBWriterBenchmark {
+
+    private MongoDBFixtures.Agent agent;
+    private MongoDBWriter writer;
+    private Document document;
+    private Timestamp timestamp;
+
+    // Metadata of the documents written, by number of entries
+    @State(Scope.Benchmark)
+    public static class Metadata {
+        @Param({"10", "100", "1000"})
+        int metadataWidth;
+
+        Map<String, MetadataType> metadata;
+
+        @Setup
+        public void setup() {
+            metadata = MongoDBFixtures.metadata(1, metadataWidth);
+        }
+    }
+
+    // Binary content of the documents written, by size in bytes
+    @State(Scope.Benchmark)
+    public static class Binary {
+        @Param({"1024", "1048576", "16777216"})
+        int binarySize;
+
+        List<byte[]> buffers;
+
+        @Setup
+        public void setup() {
+            buffers = MongoDBBenchmarkData.binary(binarySize);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        agent = new MongoDBFixtures.Agent();
+        writer = agent.writer();
+        document = MongoDBFixtures.document(1, 1024);
+        timestamp = MongoDBFixtures.timestamp(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        agent.close();
+    }
+
+    @Benchmark
+    public void extractMetadataStringValue(Metadata state, Blackhole blackhole) {
+        for (Map.Entry<String, MetadataType> entry : state.metadata.entrySet()) {
+            blackhole.consume(writer.extractMetadataStringValue(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    @Benchmark
+    public String convertTimestampToUTCString() {
+        return writer.convertTimestampToUTCString(timestamp);
+    }
+
+    @Benchmark
+    public org.bson.Document addSimMeta() {
+        org.bson.Document meta = new org.bson.Document();
+        writer.addSimMeta(meta, document);
+        return meta;
+    }
+
+    // Buffers handed to the GridFS upload, as streamed by writeContent
+    @Benchmark
+    public long toUploadSource(Binary state) {
+        return writer.toUploadSource(MongoDBBenchmarkData.dataBuffers(state.buffers))
+                .map(ByteBuffer::remaining)
+                .reduce(0L, (total, remaining) -> total + remaining)
+                .block();
+    }
+}
@@ -0,0 +1,238 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.Document;
+import com.objective.threesixty.remoteagent.sdk.BinaryDetails;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBFixtures.BUFFER_SIZE;
+
+// Drives the reader and writer the way a 3Sixty job does, with synthetic documents, metadata and binaries,
+// and reports throughput, latency, heap and GC for each phase. Runs against an in-process MongoDB stand-in,
+// or a MongoDB given with --uri, see MongoDBLoadTestOptions for the settings.
+public final class MongoDBLoadTest {
+
+    private final MongoDBLoadTestOptions options;
+    private final MongoDBLoadTestReport report;
+    private final MongoDBWriter writer;
+    private final MongoDBReader reader;
+    private final CustomParameters parameters;
+    private final Scheduler blocking;
+
+    // Random content binaries are cut from
+    private final byte[] content = new byte[4 * 1024 * 1024];
+    private final List<String> documentIds = new ArrayList<>();
+
+    private MongoDBLoadTest(MongoDBLoadTestOptions options, MongoDBLoadTestReport report, MongoDBFixtures.Agent agent) {
+        this.options = options;
+        this.report = report;
+        this.writer = agent.writer();
+        this.reader = agent.reader();
+        this.parameters = MongoDBFixtures.parameters(agent.uri(), options.database, options.collection, options.gridFS, options.scanPartitions);
+        this.blocking = Schedulers.newBoundedElastic(options.concurrency, Integer.MAX_VALUE, "loadtest-blocking");
+        new Random(1).nextBytes(content);
+    }
+
+    public static void main(String[] args) {
+        MongoDBLoadTestOptions options = MongoDBLoadTestOptions.parse(args);
+
+        // Keep the driver and stand-in logging out of the report, before either logs anything
+        LoggingSystem loggingSystem = LoggingSystem.get(MongoDBLoadTest.class.getClassLoader());
+        loggingSystem.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+        loggingSystem.setLogLevel("org.mongodb.driver", LogLevel.ERROR);
+        loggingSystem.setLogLevel("de.bwaldvogel.mongo", LogLevel.OFF);
+        System.out.println("==> Load test " + options);
+
+        // Only report missing indexes and skip the query plans, the stand-in has neither secondary indexes nor explain
+        MongoDBProperties properties = new MongoDBProperties();
+        properties.getIndexes().setMode(MongoDBProperties.Indexes.Mode.REPORT);
+        properties.getIndexes().setExplain(false);
+        // Start the stand-in unless a MongoDB is given
+        MongoDBFixtures.Agent agent = new MongoDBFixtures.Agent(options.uri, properties);
+        MongoDBLoadTestReport report = new MongoDBLoadTestReport(System.out, options.reportInterval);
+        try {
+            new MongoDBLoadTest(options, report, agent).run();
+            report.summary();
+        } finally {
+            report.close();
+            agent.close();
+        }
+        System.exit(0);
+    }
+
+    private void run() {
+        reader.init(parameters);
+        try {
+            for (String phase : options.phases) {
+                switch (phase.trim()) {
+                    case "write" -> write();
+                    case "list" -> list();
+                    case "read" -> read();
+                    case "delete" -> delete();
+                    default -> throw new IllegalArgumentException("Unknown phase " + phase);
+                }
+            }
+        } finally {
+            blocking.dispose();
+        }
+    }
+
+    // Write the documents with their metadata and binaries, as many in flight as the concurrency allows
+    private void write() {
+        MongoDBLoadTestReport.Phase phase = report.start("write");
+        Flux.range(0, options.documents)
+                .flatMap(index -> {
+                    int size = options.nextSize(ThreadLocalRandom.current());
+                    long start = System.nanoTime();
+                    return writer.writeDocument(MongoDBFixtures.document(index, size), MongoDBFixtures.metadata(index, options.metadataWidth),
+                                    binary(index, size), parameters)
+                            .doOnSuccess(written -> phase.record(start, options.gridFS ? size : 0))
+                            .onErrorResume(e -> {
+                                phase.error();
+                                return Mono.empty();
+                            });
+                }, options.concurrency)
+                .blockLast();
+        report.finish(phase);
+    }
+
+    // List the documents as the job's scan does, timing the gap between documents
+    private void list() {
+        MongoDBLoadTestReport.Phase phase = report.start("list");
+        documentIds.clear();
+        try (Stream<Document> documents = reader.getDocuments(parameters)) {
+            long[] start = {System.nanoTime()};
+            documents.forEach(document -> {
+                documentIds.add(document.getId());
+                phase.record(start[0], 0);
+                start[0] = System.nanoTime();
+            });
+        } catch (RuntimeException e) {
+            phase.error();
+        }
+        report.finish(phase);
+    }
+
+    // Look up each document, its metadata and its binary, as the job does for every listed document
+    private void read() {
+        ensureListed();
+        MongoDBLoadTestReport.Phase phase = report.start("read");
+        forEachDocument(phase, id -> {
+            reader.getDocument(id, parameters);
+            reader.getDocumentMetadata(id, parameters);
+            BinaryDetails binary = reader.getDocumentBinary(id, parameters);
+            if (binary == null) {
+                return 0;
+            }
+            try (InputStream in = binary.getInputStream()) {
+                return in.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        report.finish(phase);
+    }
+
+    private void delete() {
+        ensureListed();
+        MongoDBLoadTestReport.Phase phase = report.start("delete");
+        forEachDocument(phase, id -> {
+            reader.deleteDocument(id, parameters);
+            return 0;
+        });
+        documentIds.clear();
+        report.finish(phase);
+    }
+
+    // Run a blocking operation for each listed document, as many at once as the concurrency allows
+    private void forEachDocument(MongoDBLoadTestReport.Phase phase, Operation operation) {
+        Flux.fromIterable(documentIds)
+                .flatMap(id -> Mono.fromCallable(() -> {
+                            long start = System.nanoTime();
+                            phase.record(start, operation.apply(id));
+                            return id;
+                        })
+                        .subscribeOn(blocking)
+                        .onErrorResume(e -> {
+                            phase.error();
+                            return Mono.empty();
+                        }), options.concurrency)
+                .blockLast();
+    }
+
+    // The read and delete phases work on the listed documents, list them when the list phase was not run
+    private void ensureListed() {
+        if (documentIds.isEmpty()) {
+            try (Stream<Document> documents = reader.getDocuments(parameters)) {
+                documents.forEach(document -> documentIds.add(document.getId()));
+            }
+        }
+    }
+
+    // Binary content cut from the random block at an offset that depends on the document,
+    // split into buffers as the SDK streams it
+    private Flux<DataBuffer> binary(int index, int size) {
+        int offset = Math.floorMod(index * 7919 * BUFFER_SIZE, content.length);
+        return Flux.range(0, (size + BUFFER_SIZE - 1) / BUFFER_SIZE)
+                .map(chunk -> {
+                    int length = Math.min(BUFFER_SIZE, size - chunk * BUFFER_SIZE);
+                    int start = (offset + chunk * BUFFER_SIZE) % (content.length - BUFFER_SIZE);
+                    ByteBuffer buffer = ByteBuffer.wrap(content, start, length).slice();
+                    if (chunk == 0 && length >= Integer.BYTES) {
+                        // Stamp the document index so no two binaries are the same
+                        buffer = ByteBuffer.allocate(length).put(buffer).putInt(0, index).flip();
+                    }
+                    return DefaultDataBufferFactory.sharedInstance.wrap(buffer);
+                });
+    }
+
+    // A blocking reader call for one document, returning the number of bytes it read
+    @FunctionalInterface
+    private interface Operation {
+        long apply(String id) throws Exception;
+    }
+}
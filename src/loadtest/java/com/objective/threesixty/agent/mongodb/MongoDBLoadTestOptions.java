@@ -0,0 +1,135 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Load test settings, given as --name=value arguments
+final class MongoDBLoadTestOptions {
+
+    // Number of documents written, then listed, read and deleted
+    int documents = 10_000;
+
+    // Binary sizes as size:weight pairs, e.g. 4KB:70,256KB:25,8MB:5
+    List<DataSize> sizes = new ArrayList<>();
+    List<Integer> weights = new ArrayList<>();
+
+    // Number of metadata entries per document
+    int metadataWidth = 20;
+
+    // Number of writes, or reads, in flight at once
+    int concurrency = 64;
+
+    // Write to a GridFS bucket instead of a plain collection, which stores no binaries
+    boolean gridFS = true;
+
+    // MongoDB to run against, the in-process stand-in when not set
+    String uri;
+
+    // Cursors the reader scans with. The stand-in's $sample fails on larger collections, so raise this against MongoDB only
+    int scanPartitions = 1;
+
+    String database = "loadtest";
+    String collection = "loadtest";
+
+    // Interval between progress lines
+    Duration reportInterval = Duration.ofSeconds(5);
+
+    // Phases to run, in order
+    List<String> phases = List.of("write", "list", "read", "delete");
+
+    private int totalWeight;
+
+    static MongoDBLoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        MongoDBLoadTestOptions options = new MongoDBLoadTestOptions();
+        String sizes = "4KB:70,256KB:25,8MB:5";
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "documents" -> options.documents = Integer.parseInt(value);
+                case "sizes" -> sizes = value;
+                case "metadata-width" -> options.metadataWidth = Integer.parseInt(value);
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "gridfs" -> options.gridFS = Boolean.parseBoolean(value);
+                case "uri" -> options.uri = value;
+                case "scan-partitions" -> options.scanPartitions = Integer.parseInt(value);
+                case "database" -> options.database = value;
+                case "collection" -> options.collection = value;
+                case "report-interval" -> options.reportInterval = Duration.parse("PT" + value.toUpperCase());
+                case "phases" -> options.phases = List.of(value.split(","));
+                default -> throw new IllegalArgumentException("Unknown option --" + entry.getKey());
+            }
+        }
+
+        // Size distribution, a size without a weight counts once
+        for (String size : sizes.split(",")) {
+            String[] parts = size.split(":");
+            options.sizes.add(DataSize.parse(parts[0].trim()));
+            options.weights.add(parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+        options.totalWeight = options.weights.stream().mapToInt(Integer::intValue).sum();
+        return options;
+    }
+
+    // Draw a binary size from the distribution
+    int nextSize(Random random) {
+        int pick = random.nextInt(totalWeight);
+        for (int i = 0; i < sizes.size(); i++) {
+            pick -= weights.get(i);
+            if (pick < 0) {
+                return Math.toIntExact(sizes.get(i).toBytes());
+            }
+        }
+        return Math.toIntExact(sizes.get(sizes.size() - 1).toBytes());
+    }
+
+    @Override
+    public String toString() {
+        List<String> distribution = new ArrayList<>();
+        for (int i = 0; i < sizes.size(); i++) {
+            distribution.add(sizes.get(i).toKilobytes() + "KB:" + weights.get(i));
+        }
+        return "documents=" + documents + " sizes=" + String.join(",", distribution) + " metadata-width=" + metadataWidth
+                + " concurrency=" + concurrency + " scan-partitions=" + scanPartitions + " gridfs=" + gridFS + " uri=" + (uri == null ? "stand-in" : uri)
+                + " phases=" + String.join(",", phases);
+    }
+}
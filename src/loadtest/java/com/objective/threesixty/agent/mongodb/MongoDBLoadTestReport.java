@@ -0,0 +1,202 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Latency, throughput, heap and GC of the load test phases, printed as progress lines and a summary
+final class MongoDBLoadTestReport implements AutoCloseable {
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final PrintStream out;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-report");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Phase> phases = new ArrayList<>();
+    private final long[] lastGc = gc();
+    private final long[] startGc = lastGc.clone();
+    private long peakHeap;
+    private volatile Phase current;
+
+    MongoDBLoadTestReport(PrintStream out, Duration interval) {
+        this.out = out;
+        scheduler.scheduleAtFixedRate(this::progress, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    synchronized Phase start(String name) {
+        Phase phase = new Phase(name);
+        phases.add(phase);
+        current = phase;
+        return phase;
+    }
+
+    synchronized void finish(Phase phase) {
+        phase.end = System.nanoTime();
+        progress();
+        current = null;
+    }
+
+    // Print the operations since the previous line, with heap in use and collections since the previous line
+    private synchronized void progress() {
+        long heap = memory.getHeapMemoryUsage().getUsed();
+        peakHeap = Math.max(peakHeap, heap);
+        long[] gc = gc();
+        long collections = gc[0] - lastGc[0];
+        long collectionTime = gc[1] - lastGc[1];
+        System.arraycopy(gc, 0, lastGc, 0, gc.length);
+
+        Phase phase = current;
+        if (phase == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        double seconds = (now - phase.lastReport) / 1e9;
+        long bytes = phase.bytes.get();
+        Samples samples = phase.interval.drain();
+        phase.lastReport = now;
+        out.printf("%-8s %7.1fs  %8.1f ops/s  %8.1f MB/s  p50 %8.2fms  p99 %8.2fms  errors %d  heap %6.0fMB  gc %d (%dms)%n",
+                phase.name, (now - phase.start) / 1e9, samples.size / seconds, (bytes - phase.lastBytes) / MB / seconds,
+                samples.percentile(0.50) / 1e6, samples.percentile(0.99) / 1e6, phase.errors.get(), heap / MB,
+                collections, collectionTime);
+        phase.lastBytes = bytes;
+    }
+
+    // Totals of each phase, with the peak heap and all collections over the run
+    synchronized void summary() {
+        out.println();
+        out.printf("%-8s %10s %9s %10s %10s %10s %10s %10s %8s%n",
+                "phase", "ops", "seconds", "ops/s", "MB/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Phase phase : phases) {
+            double seconds = (phase.end - phase.start) / 1e9;
+            Samples samples = phase.total;
+            samples.sort();
+            out.printf("%-8s %10d %9.1f %10.1f %10.1f %10.2f %10.2f %10.2f %8d%n",
+                    phase.name, samples.size, seconds, samples.size / seconds, phase.bytes.get() / MB / seconds,
+                    samples.percentile(0.50) / 1e6, samples.percentile(0.99) / 1e6, samples.percentile(1.0) / 1e6,
+                    phase.errors.get());
+        }
+        long[] gc = gc();
+        out.printf("%npeak heap %.0fMB of %.0fMB, %d collections taking %dms%n",
+                peakHeap / MB, memory.getHeapMemoryUsage().getMax() / MB, gc[0] - startGc[0], gc[1] - startGc[1]);
+    }
+
+    // Collection count and time across all collectors
+    private long[] gc() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // Operations of one phase, timed from the given start
+    static final class Phase {
+        private final String name;
+        private final long start = System.nanoTime();
+        private final Samples interval = new Samples();
+        private final Samples total = new Samples();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile long end;
+        private long lastReport = start;
+        private long lastBytes;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        void record(long startNanos, long byteCount) {
+            long latency = System.nanoTime() - startNanos;
+            interval.add(latency);
+            total.add(latency);
+            bytes.addAndGet(byteCount);
+        }
+
+        void error() {
+            errors.incrementAndGet();
+        }
+    }
+
+    // Latencies in nanoseconds
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Hand over the samples so far, sorted, and start again
+        synchronized Samples drain() {
+            Samples drained = new Samples();
+            drained.values = values;
+            drained.size = size;
+            drained.sort();
+            values = new long[1024];
+            size = 0;
+            return drained;
+        }
+
+        synchronized void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        // Nearest-rank percentile of sorted samples
+        long percentile(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            return values[Math.max(0, (int) Math.ceil(percentile * size) - 1)];
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Coalesces concurrent single-key lookups into batch lookups.
+// The first caller runs a batch with the keys waiting at that moment, callers arriving while it runs wait and are
+// served by the next batch. A caller on its own is loaded straight away, so batching never adds latency.
+final class MongoDBBatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> loader;
+    private final int maxBatchSize;
+    private final Map<K, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+    private boolean loading;
+
+    MongoDBBatchLoader(Function<Collection<K>, Map<K, V>> loader, int maxBatchSize) {
+        this.loader = loader;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    // Get the value for the key, null if the batch lookup did not return one
+    V get(K key) {
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = waiting.computeIfAbsent(key, k -> new CompletableFuture<>());
+        }
+
+        while (!future.isDone()) {
+            Map<K, CompletableFuture<V>> batch = takeBatch();
+            if (batch != null) {
+                load(batch);
+            } else {
+                awaitBatch(future);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    // Number of keys waiting for the next batch
+    synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    // Wait for the running batch to finish
+    private synchronized void awaitBatch(CompletableFuture<V> future) {
+        try {
+            while (loading && !future.isDone()) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batch lookup", e);
+        }
+    }
+
+    // Take the waiting keys if no batch is running, up to the maximum batch size
+    private synchronized Map<K, CompletableFuture<V>> takeBatch() {
+        if (loading || waiting.isEmpty()) {
+            return null;
+        }
+        loading = true;
+        Map<K, CompletableFuture<V>> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<K, CompletableFuture<V>>> iterator = waiting.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatchSize) {
+            Map.Entry<K, CompletableFuture<V>> entry = iterator.next();
+            batch.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    // Run the batch lookup and hand each caller its value, or the lookup's failure
+    private void load(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = loader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (Throwable e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            synchronized (this) {
+                loading = false;
+                notifyAll();
+            }
+        }
+    }
+}
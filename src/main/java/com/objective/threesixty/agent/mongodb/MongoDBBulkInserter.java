@@ -0,0 +1,219 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants._ID;
+
+// Gathers documents inserted into, or replaced in, the same collection into unordered bulk writes.
+// A batch is written once it reaches the configured count or size, or when the batch window elapses.
+@Component
+public class MongoDBBulkInserter {
+
+    private final MongoDBClientManager clientManager;
+    private final MongoDBProperties.Bulk settings;
+    private final Codec<org.bson.Document> codec = MongoClientSettings.getDefaultCodecRegistry().get(org.bson.Document.class);
+    private final Map<MongoDBCollectionKey, Batch> batches = new ConcurrentHashMap<>();
+
+    public MongoDBBulkInserter(MongoDBClientManager clientManager, MongoDBProperties properties) {
+        this.clientManager = clientManager;
+        this.settings = properties.getWriter().getBulk();
+
+        // Documents waiting for their batch hold a write limiter permit, so fewer permits than the count never fill a batch
+        if (settings.getMaxCount() > properties.getWriter().getMaxInFlight()) {
+            getLogger().warn("==> mongodb.writer.bulk.max-count " + settings.getMaxCount() + " is above mongodb.writer.max-in-flight "
+                    + properties.getWriter().getMaxInFlight() + ", bulk inserts are written when their window elapses");
+        }
+    }
+
+    // Insert a document as part of a batch, completes once the document's own write in the batch succeeds or fails
+    public Mono<Void> insert(String uri, String db, String collection, org.bson.Document doc) {
+        return Mono.create(sink -> {
+            // Assign the _id here so the encoded document can be inserted as is
+            if (!doc.containsKey(_ID)) {
+                doc.put(_ID, new ObjectId());
+            }
+            RawBsonDocument raw = new RawBsonDocument(doc, codec);
+            batches.computeIfAbsent(new MongoDBCollectionKey(uri, db, collection), Batch::new)
+                    .add(new Entry(new InsertOneModel<>(raw), raw.getByteBuffer().remaining(), sink));
+        });
+    }
+
+    // Replace the stored document with the same _id as part of a batch, completes once the document's own write succeeds or fails
+    public Mono<Void> replace(String uri, String db, String collection, org.bson.Document doc) {
+        return Mono.create(sink -> {
+            RawBsonDocument raw = new RawBsonDocument(doc, codec);
+            batches.computeIfAbsent(new MongoDBCollectionKey(uri, db, collection), Batch::new)
+                    .add(new Entry(new ReplaceOneModel<>(Filters.eq(_ID, doc.get(_ID)), raw), raw.getByteBuffer().remaining(), sink));
+        });
+    }
+
+    // Write a batch with an unordered bulk write and complete each entry from its own result.
+    // The write runs on the Reactive Streams client, no thread waits for MongoDB to reply.
+    private void write(MongoDBCollectionKey key, List<Entry> entries) {
+        List<WriteModel<RawBsonDocument>> models = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            models.add(entry.model);
+        }
+
+        Mono.using(() -> clientManager.acquireReactive(key.uri()),
+                        client -> {
+                            MongoCollection<RawBsonDocument> collection = client.getDatabase(key.db())
+                                    .getCollection(key.collection(), RawBsonDocument.class);
+                            return Mono.from(collection.bulkWrite(models, new BulkWriteOptions().ordered(false)));
+                        },
+                        client -> clientManager.release(key.uri()))
+                .subscribe(result -> {
+                    getLogger().debug("==> Bulk wrote " + entries.size() + " documents to " + key.collection());
+                    entries.forEach(entry -> entry.sink.success());
+                }, e -> fail(key, entries, e));
+    }
+
+    // Complete the entries of a failed bulk write
+    private void fail(MongoDBCollectionKey key, List<Entry> entries, Throwable e) {
+        List<Throwable> errors = getEntryErrors(e, entries.size());
+        getLogger().debug("==> Bulk write to " + key.collection() + " failed for "
+                + errors.stream().filter(Objects::nonNull).count() + " of " + entries.size() + " documents");
+        for (int i = 0; i < entries.size(); i++) {
+            if (errors.get(i) != null) {
+                entries.get(i).sink.error(errors.get(i));
+            } else {
+                entries.get(i).sink.success();
+            }
+        }
+    }
+
+    // Get the error of each entry of a failed bulk write, null for the entries that were written.
+    // Only the entries with a write error fail, the rest of the unordered batch was written, unless the write concern failed.
+    static List<Throwable> getEntryErrors(Throwable e, int count) {
+        List<Throwable> entryErrors = new ArrayList<>(Collections.nCopies(count, null));
+        if (!(e instanceof MongoBulkWriteException bulkError)) {
+            Collections.fill(entryErrors, e);
+            return entryErrors;
+        }
+
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        bulkError.getWriteErrors().forEach(error -> errors.put(error.getIndex(), error));
+        for (int i = 0; i < count; i++) {
+            BulkWriteError error = errors.get(i);
+            if (error != null) {
+                entryErrors.set(i, new MongoWriteException(error, bulkError.getServerAddress(), bulkError.getErrorLabels()));
+            } else if (bulkError.getWriteConcernError() != null) {
+                entryErrors.set(i, bulkError);
+            }
+        }
+        return entryErrors;
+    }
+
+    private Log getLogger() {
+        return LogFactory.getLog(getClass());
+    }
+
+    // Pending documents for one collection
+    private final class Batch {
+        private final MongoDBCollectionKey key;
+        private List<Entry> pending = new ArrayList<>();
+        private long pendingBytes;
+        private Disposable timer;
+
+        private Batch(MongoDBCollectionKey key) {
+            this.key = key;
+        }
+
+        private void add(Entry entry) {
+            List<Entry> full = null;
+            synchronized (this) {
+                pending.add(entry);
+                pendingBytes += entry.size;
+                if (pending.size() >= settings.getMaxCount() || pendingBytes >= settings.getMaxSize().toBytes()) {
+                    full = take();
+                } else if (timer == null) {
+                    timer = Schedulers.parallel().schedule(this::flush, settings.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+                }
+            }
+            if (full != null) {
+                write(key, full);
+            }
+        }
+
+        // Called when the batch window elapses
+        private void flush() {
+            List<Entry> entries;
+            synchronized (this) {
+                timer = null;
+                entries = take();
+            }
+            if (!entries.isEmpty()) {
+                write(key, entries);
+            }
+        }
+
+        // Take the pending entries, must hold the lock
+        private List<Entry> take() {
+            if (timer != null) {
+                timer.dispose();
+                timer = null;
+            }
+            List<Entry> entries = pending;
+            pending = new ArrayList<>();
+            pendingBytes = 0;
+            return entries;
+        }
+    }
+
+    private record Entry(WriteModel<RawBsonDocument> model, long size, MonoSink<Void> sink) {
+    }
+}
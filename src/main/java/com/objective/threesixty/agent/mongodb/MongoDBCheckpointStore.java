@@ -0,0 +1,118 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// Keeps reader checkpoints (change stream resume tokens, last paged _id) as JSON files in a local directory
+@Component
+public class MongoDBCheckpointStore {
+
+    private final Path directory;
+
+    public MongoDBCheckpointStore(MongoDBProperties properties) {
+        this.directory = properties.getCheckpoint().getDirectory();
+    }
+
+    // Name a checkpoint after the settings it belongs to.
+    // The settings are hashed, so the credentials in the connection string are never written to disk.
+    public String key(String collection, String... settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String setting : settings) {
+                digest.update(String.valueOf(setting).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+            return collection.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Get the stored checkpoint, empty if there is none yet
+    public Optional<org.bson.Document> load(String key) {
+        Path file = file(key);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            org.bson.Document checkpoint = org.bson.Document.parse(Files.readString(file));
+            getLogger().debug("==> Loaded checkpoint " + key + " = " + checkpoint.toJson());
+            return Optional.of(checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read checkpoint " + file, e);
+        }
+    }
+
+    // Store the checkpoint, replacing the previous one in a single move so a crash never leaves a partial file
+    public void save(String key, org.bson.Document checkpoint) {
+        Path file = file(key);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.writeString(temp, checkpoint.toJson());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            getLogger().debug("==> Saved checkpoint " + key + " = " + checkpoint.toJson());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write checkpoint " + file, e);
+        }
+    }
+
+    // Remove the checkpoint, the next read starts from the beginning
+    public void clear(String key) {
+        Path file = file(key);
+        try {
+            if (Files.deleteIfExists(file)) {
+                getLogger().debug("==> Cleared checkpoint " + key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete checkpoint " + file, e);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private Log getLogger() {
+        return LogFactory.getLog(getClass());
+    }
+}
@@ -0,0 +1,183 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Shares one pooled MongoClient per connection string between the reader and writer.
+// The writer and the reader's listing use the Reactive Streams client, the reader's other calls block on the sync client.
+@Component
+public class MongoDBClientManager implements DisposableBean {
+
+    private final MongoDBProperties properties;
+    private final MongoDBMetrics metrics;
+    private final Map<String, ClientEntry> clients = new HashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    public MongoDBClientManager(MongoDBProperties properties, MongoDBMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+
+        // Periodically close clients that have not been used within the idle timeout
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mongo-client-evictor-");
+        threadFactory.setDaemon(true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long period = Math.max(1000L, properties.getClient().getIdleTimeout().toMillis() / 2);
+        this.evictor.scheduleWithFixedDelay(this::evictIdleClients, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Get the client for a connection string, creating it if needed. Each acquire must be matched by a release.
+    // The connection string includes the credentials, so different users never share a client.
+    public synchronized MongoClient acquire(String uri) {
+        ClientEntry entry = getEntry(uri);
+        if (entry.client == null) {
+            entry.client = MongoClients.create(createSettings(uri));
+            getLogger().debug("==> MongoClient created");
+        }
+        entry.references++;
+        return entry.client;
+    }
+
+    // Get the Reactive Streams client for a connection string, creating it if needed. Each acquire must be matched by a release.
+    // Its operations run on the driver's own threads, so no thread is held while waiting for MongoDB.
+    public synchronized com.mongodb.reactivestreams.client.MongoClient acquireReactive(String uri) {
+        ClientEntry entry = getEntry(uri);
+        if (entry.reactiveClient == null) {
+            entry.reactiveClient = com.mongodb.reactivestreams.client.MongoClients.create(createSettings(uri));
+            getLogger().debug("==> Reactive MongoClient created");
+        }
+        entry.references++;
+        return entry.reactiveClient;
+    }
+
+    // Get the entry holding the clients for a connection string, must hold the lock
+    private ClientEntry getEntry(String uri) {
+        ClientEntry entry = clients.get(uri);
+        if (entry == null) {
+            entry = new ClientEntry();
+            clients.put(uri, entry);
+            getLogger().debug("==> " + clients.size() + " connection string(s) in use");
+        }
+        return entry;
+    }
+
+    // Release a client acquired for a connection string, the client stays open until it is idle
+    public synchronized void release(String uri) {
+        ClientEntry entry = clients.get(uri);
+        if (entry != null && entry.references > 0) {
+            entry.references--;
+            entry.lastReleased = System.currentTimeMillis();
+        }
+    }
+
+    // Close clients without references that have been idle for longer than the idle timeout
+    synchronized void evictIdleClients() {
+        long idleBefore = System.currentTimeMillis() - properties.getClient().getIdleTimeout().toMillis();
+        Iterator<ClientEntry> it = clients.values().iterator();
+        while (it.hasNext()) {
+            ClientEntry entry = it.next();
+            if (entry.references == 0 && entry.lastReleased < idleBefore) {
+                it.remove();
+                entry.close();
+                getLogger().debug("==> Idle MongoClient closed, " + clients.size() + " connection string(s) in use");
+            }
+        }
+    }
+
+    // Close all clients on shutdown
+    @Override
+    public synchronized void destroy() {
+        evictor.shutdownNow();
+        clients.values().forEach(ClientEntry::close);
+        clients.clear();
+    }
+
+    // Build client settings from the configured pool settings and the connection string
+    private MongoClientSettings createSettings(String uri) {
+        MongoDBProperties.Pool pool = properties.getPool();
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+
+        // Record driver command latencies and connection pool usage
+        metrics.applyTo(builder);
+
+        return builder
+                .applyToConnectionPoolSettings(settings -> settings
+                        .maxSize(pool.getMaxSize())
+                        .minSize(pool.getMinSize())
+                        .maxConnecting(pool.getMaxConnecting())
+                        .maxWaitTime(pool.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(pool.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionLifeTime(pool.getMaxConnectionLifeTime().toMillis(), TimeUnit.MILLISECONDS))
+                // Applied last so options in the connection string override the configured defaults
+                .applyConnectionString(new ConnectionString(uri))
+                .build();
+    }
+
+    private void closeQuietly(AutoCloseable client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            getLogger().warn("==> Error closing MongoClient", e);
+        }
+    }
+
+    private Log getLogger() {
+        return LogFactory.getLog(getClass());
+    }
+
+    // The clients for one connection string, each created on first use and sharing the reference count
+    private final class ClientEntry {
+        private MongoClient client;
+        private com.mongodb.reactivestreams.client.MongoClient reactiveClient;
+        private int references;
+        private long lastReleased = System.currentTimeMillis();
+
+        private void close() {
+            if (client != null) {
+                closeQuietly(client);
+            }
+            if (reactiveClient != null) {
+                closeQuietly(reactiveClient);
+            }
+        }
+    }
+}
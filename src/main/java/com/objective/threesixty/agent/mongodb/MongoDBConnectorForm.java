@@ -83,7 +83,125 @@ public class MongoDBConnectorForm implements ConnectorForm {
                         .build())
                 .build();
 
-        return List.of(connectionString, db, collection, idField, query, gridFS);
+        Field dateField = Field.newBuilder()
+                .setLabel("Date Field (defaults to 'last_modified', if left blank)")
+                .setDescription("Field the job's date range is applied to, read from the file metadata for GridFS. " +
+                        "'_id' uses the creation time of ObjectId ids")
+                .setId(DATE_FIELD)
+                .setTextField(TextField.newBuilder()
+                        .build())
+                .build();
+
+        Field syncMode = Field.newBuilder()
+                .setLabel("Sync Mode")
+                .setDescription("Change Stream runs the full query once, then only returns documents inserted or updated since the previous run. " +
+                        "Resumable Pages reads the query in pages of the cursor batch size, a failed run continues after the last page returned")
+                .setId(SYNC_MODE)
+                .setSelectField(SelectField.newBuilder()
+                        .setValue(SYNC_MODE_QUERY)
+                        .addOptions(Option.newBuilder().setLabel("Full Query").setValue(SYNC_MODE_QUERY))
+                        .addOptions(Option.newBuilder().setLabel("Change Stream (Incremental)").setValue(SYNC_MODE_CHANGE_STREAM))
+                        .addOptions(Option.newBuilder().setLabel("Resumable Pages").setValue(SYNC_MODE_KEYSET))
+                        .build())
+                .build();
+
+        Field scanPartitions = Field.newBuilder()
+                .setLabel("Scan Partitions")
+                .setDescription("Number of _id ranges the query is split into and scanned in parallel, 1 scans with a single cursor")
+                .setId(SCAN_PARTITIONS)
+                .setNumberField(NumberField.newBuilder()
+                        .setValue(1)
+                        .setMin(1)
+                        .build())
+                .build();
+
+        Field scanThreads = Field.newBuilder()
+                .setLabel("Scan Threads")
+                .setDescription("Maximum number of partitions scanned at the same time")
+                .setId(SCAN_THREADS)
+                .setNumberField(NumberField.newBuilder()
+                        .setValue(DEFAULT_SCAN_THREADS)
+                        .setMin(1)
+                        .build())
+                .build();
+
+        Field batchSize = Field.newBuilder()
+                .setLabel("Cursor Batch Size")
+                .setDescription("Number of documents fetched from MongoDB per round trip while listing documents")
+                .setId(BATCH_SIZE)
+                .setNumberField(NumberField.newBuilder()
+                        .setValue(DEFAULT_BATCH_SIZE)
+                        .setMin(1)
+                        .build())
+                .build();
+
+        Field hint = Field.newBuilder()
+                .setLabel("Index Hint")
+                .setDescription("Index name or key pattern (e.g. {\"created\": 1}) used for the query, leave blank to let MongoDB choose")
+                .setId(HINT)
+                .setTextField(TextField.newBuilder()
+                        .build())
+                .build();
+
+        Field maxTimeMS = Field.newBuilder()
+                .setLabel("Max Time (ms)")
+                .setDescription("Server-side time limit for each query, 0 for no limit")
+                .setId(MAX_TIME_MS)
+                .setNumberField(NumberField.newBuilder()
+                        .setValue(0)
+                        .setMin(0)
+                        .build())
+                .build();
+
+        Field noCursorTimeout = Field.newBuilder()
+                .setLabel("No Cursor Timeout")
+                .setDescription("Prevents the server from closing the query cursor after it has been idle")
+                .setId(NO_CURSOR_TIMEOUT)
+                .setCheckboxField(CheckboxField.newBuilder()
+                        .setValue(false)
+                        .build())
+                .build();
+
+        Field readPreference = Field.newBuilder()
+                .setLabel("Read Preference")
+                .setId(READ_PREFERENCE)
+                .setSelectField(SelectField.newBuilder()
+                        .setValue("primary")
+                        .addOptions(Option.newBuilder().setLabel("Primary").setValue("primary"))
+                        .addOptions(Option.newBuilder().setLabel("Primary Preferred").setValue("primaryPreferred"))
+                        .addOptions(Option.newBuilder().setLabel("Secondary").setValue("secondary"))
+                        .addOptions(Option.newBuilder().setLabel("Secondary Preferred").setValue("secondaryPreferred"))
+                        .addOptions(Option.newBuilder().setLabel("Nearest").setValue("nearest"))
+                        .build())
+                .build();
+
+        Field readConcern = Field.newBuilder()
+                .setLabel("Read Concern")
+                .setId(READ_CONCERN)
+                .setSelectField(SelectField.newBuilder()
+                        .setValue(DEFAULT_READ_CONCERN)
+                        .addOptions(Option.newBuilder().setLabel("Server Default").setValue(DEFAULT_READ_CONCERN))
+                        .addOptions(Option.newBuilder().setLabel("Local").setValue("local"))
+                        .addOptions(Option.newBuilder().setLabel("Available").setValue("available"))
+                        .addOptions(Option.newBuilder().setLabel("Majority").setValue("majority"))
+                        .addOptions(Option.newBuilder().setLabel("Linearizable").setValue("linearizable"))
+                        .build())
+                .build();
+
+        Field metadataMapping = Field.newBuilder()
+                .setLabel("Metadata Mapping")
+                .setDescription("Typed returns dates, numbers, booleans, binaries and arrays stored in MongoDB as the matching metadata types, " +
+                        "Strings returns every value as text")
+                .setId(METADATA_MAPPING)
+                .setSelectField(SelectField.newBuilder()
+                        .setValue(METADATA_MAPPING_STRING)
+                        .addOptions(Option.newBuilder().setLabel("Strings").setValue(METADATA_MAPPING_STRING))
+                        .addOptions(Option.newBuilder().setLabel("Typed").setValue(METADATA_MAPPING_TYPED))
+                        .build())
+                .build();
+
+        return List.of(connectionString, db, collection, idField, query, gridFS, dateField, syncMode, scanPartitions,
+                scanThreads, batchSize, hint, maxTimeMS, noCursorTimeout, readPreference, readConcern, metadataMapping);
     }
 
     @Override
@@ -116,7 +234,40 @@ public class MongoDBConnectorForm implements ConnectorForm {
                         .build())
                 .build();
 
-        return List.of(connectionString, db, collection, gridFS);
+        Field metadataMapping = Field.newBuilder()
+                .setLabel("Metadata Mapping")
+                .setDescription("Typed stores dates, numbers, booleans, binaries and arrays as native BSON types, " +
+                        "Strings stores every value as text")
+                .setId(METADATA_MAPPING)
+                .setSelectField(SelectField.newBuilder()
+                        .setValue(METADATA_MAPPING_STRING)
+                        .addOptions(Option.newBuilder().setLabel("Strings").setValue(METADATA_MAPPING_STRING))
+                        .addOptions(Option.newBuilder().setLabel("Typed").setValue(METADATA_MAPPING_TYPED))
+                        .build())
+                .build();
+
+        Field deduplicate = Field.newBuilder()
+                .setLabel("Deduplicate Content")
+                .setDescription("With GridFS, binaries whose content is already stored in the bucket reference the stored chunks instead of uploading them again")
+                .setId(DEDUPLICATE)
+                .setCheckboxField(CheckboxField.newBuilder()
+                        .setValue(false)
+                        .build())
+                .build();
+
+        Field writeMode = Field.newBuilder()
+                .setLabel("Write Mode")
+                .setDescription("Upsert matches documents on their source repository id, skips documents not modified since they were written " +
+                        "and replaces the stored document, or GridFS file, of modified ones. Insert always adds a new document")
+                .setId(WRITE_MODE)
+                .setSelectField(SelectField.newBuilder()
+                        .setValue(WRITE_MODE_INSERT)
+                        .addOptions(Option.newBuilder().setLabel("Insert").setValue(WRITE_MODE_INSERT))
+                        .addOptions(Option.newBuilder().setLabel("Upsert").setValue(WRITE_MODE_UPSERT))
+                        .build())
+                .build();
+
+        return List.of(connectionString, db, collection, gridFS, metadataMapping, deduplicate, writeMode);
     }
 
     @Override
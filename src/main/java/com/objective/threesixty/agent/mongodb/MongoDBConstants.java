@@ -32,10 +32,47 @@ public class MongoDBConstants {
     public static final String COLLECTION = "mongo_collection";
     public static final String QUERY = "query";
     public static final String ID_FIELD = "idField";
+    public static final String DATE_FIELD = "dateField";
     public static final String USE_GRIDFS = "useGridFS";
+    public static final String SYNC_MODE = "syncMode";
+    public static final String SYNC_MODE_QUERY = "query";
+    public static final String SYNC_MODE_CHANGE_STREAM = "changeStream";
+    public static final String SYNC_MODE_KEYSET = "keyset";
+    public static final String RESUME_TOKEN = "resumeToken";
+    public static final String LAST_ID = "lastId";
+    public static final String SCAN_PARTITIONS = "scanPartitions";
+    public static final String SCAN_THREADS = "scanThreads";
+    public static final int DEFAULT_SCAN_THREADS = 4;
+    public static final int PARTITION_SAMPLES = 20;
+    public static final String BATCH_SIZE = "batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final String HINT = "hint";
+    public static final String MAX_TIME_MS = "maxTimeMS";
+    public static final String NO_CURSOR_TIMEOUT = "noCursorTimeout";
+    public static final String READ_PREFERENCE = "readPreference";
+    public static final String READ_CONCERN = "readConcern";
+    public static final String DEFAULT_READ_CONCERN = "default";
+    public static final String METADATA_MAPPING = "metadataMapping";
+    public static final String METADATA_MAPPING_STRING = "string";
+    public static final String METADATA_MAPPING_TYPED = "typed";
     public static final String FILES_SUFFIX = ".files";
+    public static final String CHUNKS_SUFFIX = ".chunks";
+    public static final String FILES_ID = "files_id";
+    public static final String CHUNK_N = "n";
+    public static final String CHUNK_DATA = "data";
     public static final String _ID = "_id";
+    public static final String METADATA = "metadata";
     public static final String METADATA_DOT = "metadata.";
+    public static final String GRIDFS_FILENAME = "filename";
+    public static final String GRIDFS_LENGTH = "length";
+    public static final String GRIDFS_CHUNK_SIZE = "chunkSize";
+    public static final String GRIDFS_UPLOAD_DATE = "uploadDate";
+    public static final String DEDUPLICATE = "deduplicate";
+    public static final String WRITE_MODE = "writeMode";
+    public static final String WRITE_MODE_INSERT = "insert";
+    public static final String WRITE_MODE_UPSERT = "upsert";
+    public static final String CONTENT_SHA256 = "content_sha256";
+    public static final String CONTENT_ID = "content_id";
     public static final String SIMFLOFY = "Simflofy";
     public static final String LAST_MODIFIED ="last_modified";
     public static final String CREATED ="created";
@@ -0,0 +1,300 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import com.mongodb.reactivestreams.client.gridfs.GridFSBucket;
+import com.mongodb.reactivestreams.client.gridfs.GridFSBuckets;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+
+// Uploads GridFS binaries once per distinct content. Each file stores the SHA-256 of its content and the id of the
+// file whose chunks hold it, so a file with content already stored only gets a files entry referencing those chunks.
+// Binaries up to the buffer size are hashed before upload, so duplicates never send their chunks. Larger binaries
+// are hashed while they upload, and their chunks are removed again if the content turns out to be stored already.
+final class MongoDBContentDeduplicator {
+
+    private final long bufferSize;
+    private final int cacheSize;
+    private final MongoDBMetrics metrics;
+    private final MongoDBIndexManager indexManager;
+
+    // Content stored per GridFS bucket by SHA-256, the least recently used entry is evicted once full
+    private final Map<Key, Content> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    MongoDBContentDeduplicator(MongoDBProperties properties, MongoDBMetrics metrics, MongoDBIndexManager indexManager) {
+        this.bufferSize = properties.getWriter().getDedup().getBufferSize().toBytes();
+        this.cacheSize = properties.getWriter().getDedup().getCacheSize();
+        this.metrics = metrics;
+        this.indexManager = indexManager;
+    }
+
+    // Upload the binary to the bucket, or reference the chunks of a file with the same content
+    Mono<Void> upload(MongoDBCollectionKey bucketKey, MongoDatabase database, String filename, long size,
+                      org.bson.Document metadata, Flux<ByteBuffer> source) {
+        MongoCollection<org.bson.Document> files = database.getCollection(bucketKey.collection() + FILES_SUFFIX);
+        MongoCollection<org.bson.Document> chunks = database.getCollection(bucketKey.collection() + CHUNKS_SUFFIX);
+        GridFSBucket bucket = GridFSBuckets.create(database, bucketKey.collection());
+
+        // The hash index finds stored content, the content id index is used when deleting
+        return indexManager.ensure(bucketKey, files, List.of(METADATA_DOT + CONTENT_SHA256, METADATA_DOT + CONTENT_ID)).then(size > 0 && size <= bufferSize
+                ? uploadBuffered(bucketKey, files, chunks, bucket, filename, metadata, source)
+                : uploadStreamed(bucketKey, files, chunks, bucket, filename, metadata, source));
+    }
+
+    // Delete files entries, given with their _id and content id, and the chunks no remaining file references
+    static Mono<Void> deleteFiles(MongoDatabase database, String bucket, List<org.bson.Document> stored) {
+        MongoCollection<org.bson.Document> files = database.getCollection(bucket + FILES_SUFFIX);
+        MongoCollection<org.bson.Document> chunks = database.getCollection(bucket + CHUNKS_SUFFIX);
+        List<Object> ids = stored.stream().map(file -> file.get(_ID)).toList();
+        Set<Object> contentIds = new LinkedHashSet<>();
+        for (org.bson.Document file : stored) {
+            org.bson.Document metadata = file.get(METADATA, org.bson.Document.class);
+            Object contentId = metadata != null ? metadata.get(CONTENT_ID) : null;
+            contentIds.add(contentId != null ? contentId : file.get(_ID));
+        }
+
+        // Delete the files entries before their chunks, so a failure part way leaves orphaned chunks rather than files without content
+        return Mono.from(files.deleteMany(Filters.in(_ID, ids)))
+                .thenMany(Flux.from(files.find(Filters.or(Filters.in(_ID, contentIds), Filters.in(METADATA_DOT + CONTENT_ID, contentIds)))
+                        .projection(Projections.include(_ID, METADATA_DOT + CONTENT_ID))))
+                .doOnNext(file -> {
+                    // Still referenced, keep the chunks
+                    org.bson.Document metadata = file.get(METADATA, org.bson.Document.class);
+                    contentIds.remove(metadata != null && metadata.get(CONTENT_ID) != null ? metadata.get(CONTENT_ID) : file.get(_ID));
+                })
+                .then(Mono.defer(() -> contentIds.isEmpty() ? Mono.empty()
+                        : Mono.from(chunks.deleteMany(Filters.in(FILES_ID, contentIds)))))
+                .then();
+    }
+
+    // Collect the binary up to the buffer size, the declared size may be wrong.
+    // A binary that turns out to be larger is uploaded on the streaming path, starting with the buffers collected so far.
+    private Mono<Void> uploadBuffered(MongoDBCollectionKey bucketKey, MongoCollection<org.bson.Document> files,
+                                      MongoCollection<org.bson.Document> chunks, GridFSBucket bucket, String filename,
+                                      org.bson.Document metadata, Flux<ByteBuffer> source) {
+        return Mono.defer(() -> {
+            List<ByteBuffer> buffers = new ArrayList<>();
+            AtomicLong collected = new AtomicLong();
+            AtomicBoolean overflow = new AtomicBoolean();
+            return source
+                    // At most two windows, the buffers within the buffer size and the rest from the first buffer past it
+                    .windowUntil(buffer -> collected.addAndGet(buffer.remaining()) > bufferSize && overflow.compareAndSet(false, true), true)
+                    .concatMap(window -> {
+                        if (!overflow.get()) {
+                            return window.doOnNext(buffers::add).then();
+                        }
+                        getLogger().debug("==> Binary " + filename + " is larger than declared, streaming it");
+                        return uploadStreamed(bucketKey, files, chunks, bucket, filename, metadata,
+                                Flux.fromIterable(buffers).concatWith(window));
+                    })
+                    .then(Mono.defer(() -> overflow.get() ? Mono.empty()
+                            : uploadCollected(bucketKey, files, chunks, bucket, filename, metadata, buffers)));
+        });
+    }
+
+    // Hash the whole binary before anything is sent, then reference stored content or upload the buffers
+    private Mono<Void> uploadCollected(MongoDBCollectionKey bucketKey, MongoCollection<org.bson.Document> files,
+                                       MongoCollection<org.bson.Document> chunks, GridFSBucket bucket, String filename,
+                                       org.bson.Document metadata, List<ByteBuffer> buffers) {
+        return Mono.defer(() -> {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            buffers.forEach(buffer -> digest.update(buffer.duplicate()));
+            String hash = Hex.encodeHexString(digest.digest());
+            metadata.put(CONTENT_SHA256, hash);
+
+            return find(bucketKey, files, hash)
+                    .flatMap(content -> reference(bucketKey, files, chunks, filename, metadata, hash, content))
+                    .filter(Boolean::booleanValue)
+                    .switchIfEmpty(Mono.defer(() -> {
+                        // New content, upload it with the file as the holder of its chunks
+                        ObjectId id = new ObjectId();
+                        metadata.put(CONTENT_ID, id);
+                        return Mono.from(bucket.uploadFromPublisher(new BsonObjectId(id), filename, Flux.fromIterable(buffers),
+                                        new GridFSUploadOptions().metadata(metadata)))
+                                .then(Mono.fromRunnable(() -> put(bucketKey, hash, new Content(id, sum(buffers), bucket.getChunkSizeBytes()))))
+                                .thenReturn(false);
+                    }))
+                    .then();
+        });
+    }
+
+    // Upload while hashing, then point the file at stored content and remove its own chunks if there is a match
+    private Mono<Void> uploadStreamed(MongoDBCollectionKey bucketKey, MongoCollection<org.bson.Document> files,
+                                      MongoCollection<org.bson.Document> chunks, GridFSBucket bucket, String filename,
+                                      org.bson.Document metadata, Flux<ByteBuffer> source) {
+        return Mono.defer(() -> {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            ObjectId id = new ObjectId();
+            metadata.put(CONTENT_ID, id);
+            AtomicLong length = new AtomicLong();
+            Flux<ByteBuffer> hashed = source.doOnNext(buffer -> {
+                digest.update(buffer.duplicate());
+                length.addAndGet(buffer.remaining());
+            });
+
+            return Mono.from(bucket.uploadFromPublisher(new BsonObjectId(id), filename, hashed, new GridFSUploadOptions().metadata(metadata)))
+                    .then(Mono.defer(() -> {
+                        String hash = Hex.encodeHexString(digest.digest());
+                        return find(bucketKey, files, hash)
+                                .filter(content -> !content.id().equals(id))
+                                .filterWhen(content -> hasChunks(chunks, content))
+                                .flatMap(content -> {
+                                    // Stored already, reference that content and remove the chunks just written
+                                    getLogger().debug("==> Content of " + filename + " already stored in " + content.id());
+                                    metrics.countDocuments("deduplicateContent", 1);
+                                    return Mono.from(files.updateOne(eq(_ID, id), Updates.combine(
+                                                    Updates.set(METADATA_DOT + CONTENT_SHA256, hash),
+                                                    Updates.set(METADATA_DOT + CONTENT_ID, content.id()),
+                                                    Updates.set(GRIDFS_CHUNK_SIZE, content.chunkSize()))))
+                                            .then(Mono.from(chunks.deleteMany(eq(FILES_ID, id))))
+                                            .thenReturn(true);
+                                })
+                                .switchIfEmpty(Mono.defer(() -> Mono.from(files.updateOne(eq(_ID, id), Updates.set(METADATA_DOT + CONTENT_SHA256, hash)))
+                                        .then(Mono.fromRunnable(() -> put(bucketKey, hash, new Content(id, length.get(), bucket.getChunkSizeBytes()))))
+                                        .thenReturn(false)));
+                    }))
+                    .then();
+        });
+    }
+
+    // Insert a files entry referencing the content's chunks. Returns false, with the entry removed again,
+    // if the chunks have been deleted since the content was found.
+    private Mono<Boolean> reference(MongoDBCollectionKey bucketKey, MongoCollection<org.bson.Document> files,
+                                    MongoCollection<org.bson.Document> chunks, String filename, org.bson.Document metadata,
+                                    String hash, Content content) {
+        ObjectId id = new ObjectId();
+        metadata.put(CONTENT_ID, content.id());
+        org.bson.Document file = new org.bson.Document(_ID, id)
+                .append(GRIDFS_LENGTH, content.length())
+                .append(GRIDFS_CHUNK_SIZE, content.chunkSize())
+                .append(GRIDFS_UPLOAD_DATE, new Date())
+                .append(GRIDFS_FILENAME, filename)
+                .append(METADATA, metadata);
+
+        return Mono.from(files.insertOne(file))
+                .then(hasChunks(chunks, content))
+                .flatMap(found -> {
+                    if (found) {
+                        getLogger().debug("==> Content of " + filename + " already stored in " + content.id());
+                        metrics.countDocuments("deduplicateContent", 1);
+                        return Mono.just(true);
+                    }
+                    invalidate(bucketKey, hash);
+                    return Mono.from(files.deleteOne(eq(_ID, id))).thenReturn(false);
+                });
+    }
+
+    // Find stored content with the hash, in the cache or through the hash index
+    private Mono<Content> find(MongoDBCollectionKey bucketKey, MongoCollection<org.bson.Document> files, String hash) {
+        Content cached = get(bucketKey, hash);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.from(files.find(eq(METADATA_DOT + CONTENT_SHA256, hash))
+                        .projection(Projections.include(_ID, GRIDFS_LENGTH, GRIDFS_CHUNK_SIZE, METADATA_DOT + CONTENT_ID))
+                        .first())
+                .map(file -> {
+                    org.bson.Document metadata = file.get(METADATA, org.bson.Document.class);
+                    ObjectId contentId = metadata != null && metadata.get(CONTENT_ID) instanceof ObjectId id ? id : file.getObjectId(_ID);
+                    Content content = new Content(contentId, ((Number) file.get(GRIDFS_LENGTH)).longValue(),
+                            ((Number) file.get(GRIDFS_CHUNK_SIZE)).intValue());
+                    put(bucketKey, hash, content);
+                    return content;
+                });
+    }
+
+    // Whether the content's chunks are still stored, empty content has none
+    private Mono<Boolean> hasChunks(MongoCollection<org.bson.Document> chunks, Content content) {
+        if (content.length() == 0) {
+            return Mono.just(true);
+        }
+        return Mono.from(chunks.find(Filters.and(eq(FILES_ID, content.id()), eq(CHUNK_N, 0)))
+                        .projection(Projections.include(_ID))
+                        .first())
+                .hasElement();
+    }
+
+    private synchronized Content get(MongoDBCollectionKey bucketKey, String hash) {
+        return cache.get(new Key(bucketKey, hash));
+    }
+
+    private synchronized void put(MongoDBCollectionKey bucketKey, String hash, Content content) {
+        if (cacheSize <= 0) {
+            return;
+        }
+        cache.put(new Key(bucketKey, hash), content);
+        if (cache.size() > cacheSize) {
+            cache.remove(cache.keySet().iterator().next());
+        }
+    }
+
+    private synchronized void invalidate(MongoDBCollectionKey bucketKey, String hash) {
+        cache.remove(new Key(bucketKey, hash));
+    }
+
+    private static long sum(List<ByteBuffer> buffers) {
+        return buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+    }
+
+    private Log getLogger() {
+        return LogFactory.getLog(getClass());
+    }
+
+    // Stored content, identified by the id of the file holding its chunks
+    private record Content(ObjectId id, long length, int chunkSize) {
+    }
+
+    private record Key(MongoDBCollectionKey bucket, String hash) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.bson.BsonBinarySubType;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+
+// Encodes ID Field values as docIds that keep their BSON type, so lookups by docId filter on the stored value and
+// can use its index. Strings, and ObjectIds when the ID Field is _id, are returned as is, as they always have been.
+// Other values are written as <type>:<value>, named after the $type alias of the value where there is one, e.g. long:42,
+// objectId:5f1d7a3b2c4e6f0012345678 or uuid:<UUID> for standard UUID binaries. Compound ids, stored as embedded documents, are written as object:<Extended JSON>,
+// and any other type as json:<Extended JSON>.
+final class MongoDBDocIds {
+
+    static final String STRING = "string";
+    static final String OBJECT_ID = "objectId";
+    static final String LONG = "long";
+    static final String INT = "int";
+    static final String DOUBLE = "double";
+    static final String DECIMAL = "decimal";
+    static final String DATE = "date";
+    static final String BOOL = "bool";
+    static final String UUID_TYPE = "uuid";
+    static final String OBJECT = "object";
+    static final String JSON = "json";
+
+    private static final Set<String> TYPES = Set.of(STRING, OBJECT_ID, LONG, INT, DOUBLE, DECIMAL, DATE, BOOL, UUID_TYPE, OBJECT, JSON);
+    private static final char SEPARATOR = ':';
+    private static final String VALUE = "v";
+
+    // Canonical Extended JSON keeps the numeric types, so embedded ids are matched on their stored values
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private MongoDBDocIds() {
+    }
+
+    // Encode an ID Field value as a docId, objectIdPlain is set when the ID Field is _id
+    static String encode(Object value, boolean objectIdPlain) {
+        if (value == null) {
+            return null;
+        }
+        String type = type(value);
+        if (type.equals(STRING)) {
+            // Strings that would read as another type are prefixed
+            String string = (String) value;
+            return isTyped(string) || (objectIdPlain && ObjectId.isValid(string)) ? STRING + SEPARATOR + string : string;
+        }
+        if (type.equals(OBJECT_ID) && objectIdPlain) {
+            return ((ObjectId) value).toHexString();
+        }
+        return type + SEPARATOR + switch (type) {
+            case OBJECT_ID -> ((ObjectId) value).toHexString();
+            case DATE -> String.valueOf(((Date) value).getTime());
+            case UUID_TYPE -> toUuid(value).toString();
+            case OBJECT -> ((org.bson.Document) value).toJson(JSON_SETTINGS);
+            case JSON -> new org.bson.Document(VALUE, value).toJson(JSON_SETTINGS);
+            default -> String.valueOf(value);
+        };
+    }
+
+    // Decode a docId to the value stored in the ID Field, objectIdPlain is set when the ID Field is _id
+    static Object decode(String docId, boolean objectIdPlain) {
+        if (!isTyped(docId)) {
+            return objectIdPlain && ObjectId.isValid(docId) ? new ObjectId(docId) : docId;
+        }
+        int separator = docId.indexOf(SEPARATOR);
+        String value = docId.substring(separator + 1);
+        return switch (docId.substring(0, separator)) {
+            case OBJECT_ID -> new ObjectId(value);
+            case LONG -> Long.parseLong(value);
+            case INT -> Integer.parseInt(value);
+            case DOUBLE -> Double.parseDouble(value);
+            case DECIMAL -> Decimal128.parse(value);
+            case DATE -> new Date(Long.parseLong(value));
+            case BOOL -> Boolean.parseBoolean(value);
+            case UUID_TYPE -> new Binary(BsonBinarySubType.UUID_STANDARD, toBytes(UUID.fromString(value)));
+            case OBJECT -> org.bson.Document.parse(value);
+            case JSON -> org.bson.Document.parse(value).get(VALUE);
+            default -> value;
+        };
+    }
+
+    // Get the type a value is encoded as
+    static String type(Object value) {
+        if (value instanceof String) {
+            return STRING;
+        } else if (value instanceof ObjectId) {
+            return OBJECT_ID;
+        } else if (value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Integer) {
+            return INT;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        } else if (value instanceof Decimal128) {
+            return DECIMAL;
+        } else if (value instanceof Date) {
+            return DATE;
+        } else if (value instanceof Boolean) {
+            return BOOL;
+        } else if (value instanceof UUID || (value instanceof Binary binary
+                && binary.getType() == BsonBinarySubType.UUID_STANDARD.getValue() && binary.getData().length == 16)) {
+            return UUID_TYPE;
+        } else if (value instanceof org.bson.Document) {
+            return OBJECT;
+        }
+        return JSON;
+    }
+
+    private static boolean isTyped(String docId) {
+        int separator = docId.indexOf(SEPARATOR);
+        return separator > 0 && TYPES.contains(docId.substring(0, separator));
+    }
+
+    private static UUID toUuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(((Binary) value).getData());
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+}
@@ -0,0 +1,127 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import io.micrometer.core.instrument.Counter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Bounded cache of the documents, or GridFS files collection entries, looked up by docId.
+// Entries expire after the TTL, and the least recently used entry is evicted once the cache is full.
+// Hits, misses and evictions are counted in the mongodb.agent.cache meter.
+final class MongoDBDocumentCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    MongoDBDocumentCache(int maxSize, Duration ttl, MongoDBMetrics metrics) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = metrics.cacheCounter("hit");
+        this.misses = metrics.cacheCounter("miss");
+        this.evictions = metrics.cacheCounter("eviction");
+    }
+
+    // Get the cached document, null on a miss
+    org.bson.Document get(Key key) {
+        org.bson.Document document = getIfPresent(key);
+        (document != null ? hits : misses).increment();
+        return document;
+    }
+
+    // Get the cached document, loading and caching it on a miss. Documents that are not found are not cached.
+    org.bson.Document get(Key key, Supplier<org.bson.Document> loader) {
+        org.bson.Document document = get(key);
+        if (document != null) {
+            return document;
+        }
+
+        // Load outside the lock, so lookups of other documents are not held up
+        document = loader.get();
+        if (document != null) {
+            put(key, document);
+        }
+        return document;
+    }
+
+    synchronized void put(Key key, org.bson.Document document) {
+        if (maxSize <= 0) {
+            return;
+        }
+        entries.put(key, new Entry(document, System.nanoTime() + ttlNanos));
+
+        // Evict the least recently used entries over the maximum size
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    synchronized void invalidate(Key key) {
+        entries.remove(key);
+    }
+
+    private synchronized org.bson.Document getIfPresent(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(key);
+            evictions.increment();
+            return null;
+        }
+        return entry.document();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "size = " + size() + ", hits = " + (long) hits.count() + ", misses = " + (long) misses.count()
+                + ", evictions = " + (long) evictions.count();
+    }
+
+    // Documents are cached per collection and ID Field, the reader is shared between jobs
+    record Key(MongoDBCollectionKey collection, String idField, String docId) {
+    }
+
+    private record Entry(org.bson.Document document, long expiresAt) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+
+// Cursor tuning options from the source repository fields.
+// The index hint and cursor timeout only apply to the main query, lookups by id use the id field's index.
+record MongoDBFindOptions(int batchSize, String hint, long maxTimeMS, boolean noCursorTimeout,
+                          String readPreference, String readConcern) {
+
+    // Read the cursor tuning options from the stored parameters
+    static MongoDBFindOptions from(CustomParameters parameters) {
+        return new MongoDBFindOptions(
+                MongoDBParameters.getPositiveInt(parameters, BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                MongoDBParameters.getString(parameters, HINT, null),
+                MongoDBParameters.getLong(parameters, MAX_TIME_MS, 0L),
+                MongoDBParameters.getBoolean(parameters, NO_CURSOR_TIMEOUT, false),
+                MongoDBParameters.getString(parameters, READ_PREFERENCE, null),
+                MongoDBParameters.getString(parameters, READ_CONCERN, null));
+    }
+
+    // Apply the read preference and read concern to the database, and so to every query against it
+    MongoDatabase apply(MongoDatabase database) {
+        MongoDatabase result = database;
+        if (readPreference != null) {
+            result = result.withReadPreference(ReadPreference.valueOf(readPreference));
+        }
+        if (readConcern != null && !readConcern.equalsIgnoreCase(DEFAULT_READ_CONCERN)) {
+            result = result.withReadConcern(new ReadConcern(ReadConcernLevel.fromString(readConcern)));
+        }
+        return result;
+    }
+
+    // Apply the read preference and read concern to the Reactive Streams database
+    com.mongodb.reactivestreams.client.MongoDatabase apply(com.mongodb.reactivestreams.client.MongoDatabase database) {
+        com.mongodb.reactivestreams.client.MongoDatabase result = database;
+        if (readPreference != null) {
+            result = result.withReadPreference(ReadPreference.valueOf(readPreference));
+        }
+        if (readConcern != null && !readConcern.equalsIgnoreCase(DEFAULT_READ_CONCERN)) {
+            result = result.withReadConcern(new ReadConcern(ReadConcernLevel.fromString(readConcern)));
+        }
+        return result;
+    }
+
+    // Apply the options to the main query
+    <T> FindIterable<T> applyToScan(FindIterable<T> find) {
+        FindIterable<T> result = applyToLookup(find).noCursorTimeout(noCursorTimeout);
+        if (batchSize > 0) {
+            result = result.batchSize(batchSize);
+        }
+        if (hint != null) {
+            // A hint is either an index specification document or an index name
+            result = hint.startsWith("{") ? result.hint(org.bson.Document.parse(hint)) : result.hintString(hint);
+        }
+        return result;
+    }
+
+    // Apply the options to the main query run on the Reactive Streams client
+    <T> FindPublisher<T> applyToScan(FindPublisher<T> find) {
+        FindPublisher<T> result = find.noCursorTimeout(noCursorTimeout);
+        if (maxTimeMS > 0) {
+            result = result.maxTime(maxTimeMS, TimeUnit.MILLISECONDS);
+        }
+        if (batchSize > 0) {
+            result = result.batchSize(batchSize);
+        }
+        if (hint != null) {
+            result = hint.startsWith("{") ? result.hint(org.bson.Document.parse(hint)) : result.hintString(hint);
+        }
+        return result;
+    }
+
+    // Apply the options to a lookup by id
+    <T> FindIterable<T> applyToLookup(FindIterable<T> find) {
+        return maxTimeMS > 0 ? find.maxTime(maxTimeMS, TimeUnit.MILLISECONDS) : find;
+    }
+
+    @Override
+    public String toString() {
+        return "batchSize = " + batchSize + ", hint = " + hint + ", maxTimeMS = " + maxTimeMS +
+                ", noCursorTimeout = " + noCursorTimeout + ", readPreference = " + readPreference +
+                ", readConcern = " + readConcern;
+    }
+}
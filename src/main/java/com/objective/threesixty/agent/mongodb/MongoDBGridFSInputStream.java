@@ -0,0 +1,178 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static com.mongodb.client.model.Filters.*;
+import static com.mongodb.client.model.Sorts.ascending;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+
+// Reads a byte range of a GridFS file straight from its chunks, starting at the chunk holding the offset.
+// With a prefetch greater than zero the next chunks are fetched concurrently while the current chunk is read.
+final class MongoDBGridFSInputStream extends InputStream {
+
+    private final MongoCollection<org.bson.Document> chunks;
+    private final BsonValue fileId;
+    private final int chunkSize;
+    private final int lastChunk;
+    private final int prefetch;
+    private final Executor executor;
+
+    // Sequential reads use a single cursor over the chunks in the range
+    private MongoCursor<org.bson.Document> cursor;
+
+    // Parallel reads keep a bounded ring of pending chunk fetches
+    private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private int nextFetch;
+
+    private int nextChunk;
+    private byte[] buffer;
+    private int position;
+    private int skip;
+    private long remaining;
+    private boolean closed;
+
+    MongoDBGridFSInputStream(MongoCollection<org.bson.Document> chunks, GridFSFile file, long offset, long length,
+                             int prefetch, Executor executor) {
+        this.chunks = chunks;
+        this.fileId = file.getId();
+        this.chunkSize = file.getChunkSize();
+        this.prefetch = prefetch;
+        this.executor = executor;
+
+        // Work out the chunks holding the requested range
+        long start = Math.min(Math.max(0L, offset), file.getLength());
+        this.remaining = length < 0 ? file.getLength() - start : Math.min(length, file.getLength() - start);
+        this.nextChunk = (int) (start / chunkSize);
+        this.nextFetch = nextChunk;
+        this.skip = (int) (start % chunkSize);
+        this.lastChunk = remaining > 0 ? (int) ((start + remaining - 1) / chunkSize) : nextChunk - 1;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        // Move to the next chunk once the current one has been read
+        if (buffer == null || position >= buffer.length) {
+            buffer = nextChunk();
+            position = skip;
+            skip = 0;
+        }
+
+        int count = (int) Math.min(Math.min(len, buffer.length - position), remaining);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        remaining -= count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer == null ? 0 : (int) Math.min(buffer.length - position, remaining);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (cursor != null) {
+            cursor.close();
+        }
+        pending.forEach(future -> future.cancel(false));
+        pending.clear();
+    }
+
+    // Get data of the next chunk in the range
+    private byte[] nextChunk() throws IOException {
+        int n = nextChunk++;
+        return prefetch > 0 ? nextPrefetchedChunk(n) : nextCursorChunk(n);
+    }
+
+    private byte[] nextCursorChunk(int n) throws IOException {
+        if (cursor == null) {
+            Bson filter = and(eq(FILES_ID, fileId), gte(CHUNK_N, n), lte(CHUNK_N, lastChunk));
+            cursor = chunks.find(filter).sort(ascending(CHUNK_N)).cursor();
+        }
+        org.bson.Document chunk = cursor.hasNext() ? cursor.next() : null;
+        if (chunk == null || chunk.getInteger(CHUNK_N, -1) != n) {
+            throw new IOException("Missing chunk " + n + " of GridFS file " + fileId);
+        }
+        return chunk.get(CHUNK_DATA, Binary.class).getData();
+    }
+
+    private byte[] nextPrefetchedChunk(int n) throws IOException {
+        // Keep up to prefetch chunk fetches in flight
+        while (pending.size() < prefetch && nextFetch <= lastChunk) {
+            int fetch = nextFetch++;
+            pending.add(CompletableFuture.supplyAsync(() -> fetchChunk(fetch), executor));
+        }
+        try {
+            return pending.remove().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Could not read chunk " + n + " of GridFS file " + fileId, e.getCause());
+        }
+    }
+
+    private byte[] fetchChunk(int n) {
+        org.bson.Document chunk = chunks.find(and(eq(FILES_ID, fileId), eq(CHUNK_N, n))).first();
+        if (chunk == null) {
+            throw new CompletionException(new IOException("Missing chunk " + n + " of GridFS file " + fileId));
+        }
+        return chunk.get(CHUNK_DATA, Binary.class).getData();
+    }
+}
@@ -0,0 +1,195 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants._ID;
+
+// Makes sure the fields the agent filters on are indexed. Depending on the configured mode a missing index is created,
+// reported in the log, or fails the job. An index covers a field when the field is the first key of the index.
+final class MongoDBIndexManager {
+
+    private final MongoDBProperties.Indexes settings;
+
+    // Checks of the writer's target collections, made once per collection and set of fields
+    private final Map<Check, Mono<Void>> checked = new ConcurrentHashMap<>();
+
+    MongoDBIndexManager(MongoDBProperties properties) {
+        this.settings = properties.getIndexes();
+    }
+
+    // Check the indexes on the fields a reader filters on, and log how MongoDB plans the query when debugging
+    void verify(MongoCollection<org.bson.Document> collection, Collection<String> fields, FindIterable<org.bson.Document> query) {
+        String name = collection.getNamespace().getCollectionName();
+        try {
+            Set<String> indexed = new LinkedHashSet<>();
+            for (org.bson.Document index : collection.listIndexes()) {
+                indexed.add(firstKey(index));
+            }
+            List<String> missing = missing(fields, indexed);
+            if (!missing.isEmpty()) {
+                handleMissing(name, missing);
+                if (settings.getMode() == MongoDBProperties.Indexes.Mode.CREATE) {
+                    collection.createIndexes(models(missing));
+                }
+            }
+        } catch (MongoException e) {
+            // The job still runs without the indexes, only slower
+            getLogger().warn("==> Could not check the indexes on " + fields + " in " + name + ": " + e.getMessage());
+        }
+
+        // Explaining costs a round trip per init, so only when its output is logged
+        if (settings.isExplain() && query != null && getLogger().isDebugEnabled()) {
+            explain(name, query);
+        }
+    }
+
+    // Check the indexes on the fields a writer looks documents up by, once per collection
+    Mono<Void> ensure(MongoDBCollectionKey collectionKey, com.mongodb.reactivestreams.client.MongoCollection<org.bson.Document> collection,
+                      List<String> fields) {
+        String name = collection.getNamespace().getCollectionName();
+        return checked.computeIfAbsent(new Check(collectionKey, name, fields), check -> Flux.from(collection.listIndexes())
+                        .map(MongoDBIndexManager::firstKey)
+                        .collect(LinkedHashSet<String>::new, Set::add)
+                        .flatMap(indexed -> {
+                            List<String> missing = missing(fields, indexed);
+                            if (missing.isEmpty()) {
+                                return Mono.<Void>empty();
+                            }
+                            handleMissing(name, missing);
+                            return settings.getMode() == MongoDBProperties.Indexes.Mode.CREATE
+                                    ? Mono.from(collection.createIndexes(models(missing))).then()
+                                    : Mono.<Void>empty();
+                        })
+                        .doOnError(e -> checked.remove(check))
+                        .cache())
+                .onErrorResume(MongoException.class, e -> {
+                    // Writes still work without the indexes, only slower
+                    getLogger().warn("==> Could not check the indexes on " + fields + " in " + name + ": " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static List<String> missing(Collection<String> fields, Set<String> indexed) {
+        List<String> missing = new ArrayList<>();
+        for (String field : fields) {
+            if (!field.equals(_ID) && !indexed.contains(field)) {
+                missing.add(field);
+            }
+        }
+        return missing;
+    }
+
+    // Log the missing indexes, or fail if indexes are required
+    private void handleMissing(String collection, List<String> missing) {
+        switch (settings.getMode()) {
+            case CREATE -> getLogger().info("==> Creating indexes on " + missing + " in " + collection);
+            case REPORT -> getLogger().warn("==> No index on " + missing + " in " + collection + ", lookups on these fields scan the collection");
+            case REQUIRE -> throw new IllegalStateException("No index on " + missing + " in " + collection
+                    + ", create the indexes or set mongodb.indexes.mode to create or report");
+        }
+    }
+
+    // Ascending indexes, sparse as documents written by other tools may not have the fields
+    private static List<IndexModel> models(List<String> fields) {
+        return fields.stream().map(field -> new IndexModel(Indexes.ascending(field), new IndexOptions().sparse(true))).toList();
+    }
+
+    // Log the winning plan's stages and indexes, noting when the query scans the whole collection
+    private void explain(String collection, FindIterable<org.bson.Document> query) {
+        try {
+            org.bson.Document planner = query.explain(ExplainVerbosity.QUERY_PLANNER).get("queryPlanner", org.bson.Document.class);
+            org.bson.Document plan = planner != null ? planner.get("winningPlan", org.bson.Document.class) : null;
+            if (plan == null) {
+                getLogger().debug("==> No query plan returned for " + collection);
+                return;
+            }
+            // Plans from the slot-based engine nest the classic plan
+            if (plan.containsKey("queryPlan")) {
+                plan = plan.get("queryPlan", org.bson.Document.class);
+            }
+            List<String> stages = new ArrayList<>();
+            describe(plan, stages);
+            String summary = String.join(" <- ", stages);
+            if (stages.contains("COLLSCAN")) {
+                getLogger().debug("==> Query on " + collection + " scans the collection: " + summary);
+            } else {
+                getLogger().debug("==> Query plan on " + collection + ": " + summary);
+            }
+        } catch (RuntimeException e) {
+            getLogger().debug("==> Could not explain the query on " + collection + ": " + e.getMessage());
+        }
+    }
+
+    // Add the stages of the plan from the top down, with the index used by index scans
+    private static void describe(org.bson.Document stage, List<String> stages) {
+        String name = stage.getString("stage");
+        String index = stage.getString("indexName");
+        stages.add(index != null ? name + "(" + index + ")" : String.valueOf(name));
+        if (stage.get("inputStage") instanceof org.bson.Document input) {
+            describe(input, stages);
+        }
+        if (stage.get("inputStages") instanceof List<?> inputs) {
+            for (Object input : inputs) {
+                if (input instanceof org.bson.Document document) {
+                    describe(document, stages);
+                }
+            }
+        }
+    }
+
+    private static String firstKey(org.bson.Document index) {
+        org.bson.Document key = index.get("key", org.bson.Document.class);
+        return key == null || key.isEmpty() ? "" : key.keySet().iterator().next();
+    }
+
+    private Log getLogger() {
+        return LogFactory.getLog(getClass());
+    }
+
+    private record Check(MongoDBCollectionKey collectionKey, String collection, List<String> fields) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import com.objective.threesixty.MetadataType;
+import com.objective.threesixty.StringArray;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+// Maps metadata values to native BSON types and back, for the typed metadata mapping.
+// Dates are stored with millisecond precision, the precision of a BSON date.
+final class MongoDBMetadataMapper {
+
+    private MongoDBMetadataMapper() {
+    }
+
+    // Get the BSON value to store for a metadata value, null if it has no value
+    static Object toBson(MetadataType value) {
+        if (value.hasArray()) {
+            return new ArrayList<>(value.getArray().getValuesList());
+        } else if (value.hasBinary()) {
+            return new Binary(value.getBinary().toByteArray());
+        } else if (value.hasBoolean()) {
+            return value.getBoolean();
+        } else if (value.hasDouble()) {
+            return value.getDouble();
+        } else if (value.hasDecimal()) {
+            // Parse the float's shortest decimal form, so 0.1 is stored as 0.1 rather than its binary expansion
+            return Decimal128.parse(Float.toString(value.getDecimal()));
+        } else if (value.hasDateTime()) {
+            Timestamp timestamp = value.getDateTime();
+            return new Date(timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1_000_000);
+        } else if (value.hasInteger()) {
+            return value.getInteger();
+        } else if (value.hasLargeString()) {
+            return value.getLargeString();
+        } else if (value.hasLong()) {
+            return value.getLong();
+        } else if (value.hasString()) {
+            return value.getString();
+        }
+        return null;
+    }
+
+    // Get the metadata value for a stored BSON value, types with no matching variant are returned as strings
+    static MetadataType toMetadataType(Object value) {
+        MetadataType.Builder builder = MetadataType.newBuilder();
+        if (value instanceof Date date) {
+            builder.setDateTime(Timestamp.newBuilder()
+                    .setSeconds(Math.floorDiv(date.getTime(), 1000))
+                    .setNanos((int) Math.floorMod(date.getTime(), 1000) * 1_000_000));
+        } else if (value instanceof Long longValue) {
+            builder.setLong(longValue);
+        } else if (value instanceof Integer integer) {
+            builder.setInteger(integer);
+        } else if (value instanceof Double doubleValue) {
+            builder.setDouble(doubleValue);
+        } else if (value instanceof Decimal128 decimal) {
+            builder.setDecimal(Float.parseFloat(decimal.toString()));
+        } else if (value instanceof Boolean booleanValue) {
+            builder.setBoolean(booleanValue);
+        } else if (value instanceof Binary binary) {
+            builder.setBinary(ByteString.copyFrom(binary.getData()));
+        } else if (value instanceof byte[] bytes) {
+            builder.setBinary(ByteString.copyFrom(bytes));
+        } else if (value instanceof Collection<?> values) {
+            List<String> strings = new ArrayList<>(values.size());
+            for (Object element : values) {
+                strings.add(String.valueOf(element));
+            }
+            builder.setArray(StringArray.newBuilder().addAllValues(strings));
+        } else {
+            builder.setString(String.valueOf(value));
+        }
+        return builder.build();
+    }
+}
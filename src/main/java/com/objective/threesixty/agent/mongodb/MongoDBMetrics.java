@@ -0,0 +1,235 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Records the latency, documents, bytes and errors of the reader and writer operations,
+// and bridges the MongoDB driver's command and connection pool events into the same registry
+@Component
+public class MongoDBMetrics {
+
+    // Latency of each operation, tagged with the operation and its outcome
+    static final String OPERATION_TIMER = "mongodb.agent.operation";
+    // Documents listed or written, their rate gives documents per second
+    static final String DOCUMENTS_COUNTER = "mongodb.agent.documents";
+    // Binary bytes written to MongoDB (in) and read from MongoDB (out)
+    static final String BYTES_COUNTER = "mongodb.agent.bytes";
+    // Failed operations, tagged with the operation and exception type
+    static final String ERRORS_COUNTER = "mongodb.agent.errors";
+    // Document cache lookups that hit or missed, and entries evicted when full or expired
+    static final String CACHE_COUNTER = "mongodb.agent.cache";
+
+    private final MeterRegistry registry;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+
+    public MongoDBMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.bytesIn = Counter.builder(BYTES_COUNTER).tag("direction", "in").baseUnit("bytes")
+                .description("Binary bytes written to MongoDB").register(registry);
+        this.bytesOut = Counter.builder(BYTES_COUNTER).tag("direction", "out").baseUnit("bytes")
+                .description("Binary bytes read from MongoDB").register(registry);
+    }
+
+    // Add the driver's command and connection pool listeners to the client settings
+    void applyTo(MongoClientSettings.Builder builder) {
+        builder.addCommandListener(new MongoMetricsCommandListener(registry))
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(new MongoMetricsConnectionPoolListener(registry)));
+    }
+
+    // Time a blocking operation
+    <T> T record(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            T result = call.get();
+            stop(sample, operation, null);
+            return result;
+        } catch (RuntimeException e) {
+            stop(sample, operation, e);
+            throw e;
+        }
+    }
+
+    // Time a blocking operation without a result
+    void record(String operation, Runnable call) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // Time a reactive operation from subscription until it completes, fails or is cancelled
+    <T> Mono<T> record(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            return call.doOnError(error::set)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            stopTimer(sample, operation, "cancelled");
+                        } else {
+                            stop(sample, operation, error.get());
+                        }
+                    });
+        });
+    }
+
+    // Time a listing until its stream is read to the end or closed, counting the documents returned
+    <T> Stream<T> recordStream(String operation, Supplier<Stream<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        Stream<T> stream;
+        try {
+            stream = call.get();
+        } catch (RuntimeException e) {
+            stop(sample, operation, e);
+            throw e;
+        }
+
+        Counter documents = documentsCounter(operation);
+        AtomicBoolean stopped = new AtomicBoolean();
+        Iterator<T> source = stream.iterator();
+        Iterator<T> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    boolean hasNext = source.hasNext();
+                    if (!hasNext && stopped.compareAndSet(false, true)) {
+                        stop(sample, operation, null);
+                    }
+                    return hasNext;
+                } catch (RuntimeException e) {
+                    if (stopped.compareAndSet(false, true)) {
+                        stop(sample, operation, e);
+                    }
+                    throw e;
+                }
+            }
+
+            @Override
+            public T next() {
+                T next = source.next();
+                documents.increment();
+                return next;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    if (stopped.compareAndSet(false, true)) {
+                        stop(sample, operation, null);
+                    }
+                    stream.close();
+                });
+    }
+
+    // Count documents handled by an operation
+    void countDocuments(String operation, long count) {
+        documentsCounter(operation).increment(count);
+    }
+
+    // Count binary bytes written to MongoDB
+    void countBytesIn(long count) {
+        bytesIn.increment(count);
+    }
+
+    // Count the binary bytes read from MongoDB as the stream is consumed
+    InputStream countBytesOut(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesOut.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    bytesOut.increment(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    // Get the counter of document cache results, one of hit, miss or eviction
+    Counter cacheCounter(String result) {
+        return Counter.builder(CACHE_COUNTER).tag("result", result)
+                .description("Document cache lookups and evictions").register(registry);
+    }
+
+    // Record the operation's latency with its outcome: success, error or cancelled
+    private void stopTimer(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder(OPERATION_TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .description("Latency of the remote agent's MongoDB operations")
+                .register(registry));
+    }
+
+    private Counter documentsCounter(String operation) {
+        return Counter.builder(DOCUMENTS_COUNTER).tag("operation", operation)
+                .description("Documents listed or written").register(registry);
+    }
+
+    // Record the operation's latency, and count the error if it failed
+    private void stop(Timer.Sample sample, String operation, Throwable error) {
+        stopTimer(sample, operation, error == null ? "success" : "error");
+        if (error != null) {
+            Counter.builder(ERRORS_COUNTER)
+                    .tag("operation", operation)
+                    .tag("exception", error.getClass().getSimpleName())
+                    .description("Failed remote agent operations")
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
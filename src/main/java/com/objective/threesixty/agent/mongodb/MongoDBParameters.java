@@ -0,0 +1,98 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.Value;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+// Helpers for reading optional parameters, jobs saved before a field was added will not contain it
+final class MongoDBParameters {
+
+    private MongoDBParameters() {
+    }
+
+    // Get String parameter, returns the default value if missing or blank
+    static String getString(CustomParameters parameters, String key, String defaultValue) {
+        if (!parameters.containsKey(key)) {
+            return defaultValue;
+        }
+        String value = parameters.get(key).getString();
+        return StringUtils.isBlank(value) ? defaultValue : value.trim();
+    }
+
+    // Get boolean parameter, returns the default value if missing
+    static boolean getBoolean(CustomParameters parameters, String key, boolean defaultValue) {
+        if (!parameters.containsKey(key)) {
+            return defaultValue;
+        }
+        Value value = parameters.get(key);
+        if (value.hasString()) {
+            return StringUtils.isBlank(value.getString()) ? defaultValue : Boolean.parseBoolean(value.getString().trim());
+        }
+        return value.getBoolean();
+    }
+
+    // Get int parameter that must be at least 1, such as a batch size. The form's minimum is not enforced when a job
+    // is saved, so values below 1 fall back to the default value and values above the int range are capped.
+    static int getPositiveInt(CustomParameters parameters, String key, int defaultValue) {
+        long value = getLong(parameters, key, defaultValue);
+        if (value < 1) {
+            getLogger().warn("==> Parameter '" + key + "' must be at least 1, was " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    // Get long parameter, number fields may arrive as int, long or String values
+    static long getLong(CustomParameters parameters, String key, long defaultValue) {
+        if (!parameters.containsKey(key)) {
+            return defaultValue;
+        }
+        Value value = parameters.get(key);
+        if (value.hasLong()) {
+            return value.getLong();
+        } else if (value.hasInt()) {
+            return value.getInt();
+        } else if (value.hasDouble()) {
+            return (long) value.getDouble();
+        } else if (value.hasString() && StringUtils.isNotBlank(value.getString())) {
+            try {
+                return Long.parseLong(value.getString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Parameter '" + key + "' is not a number: " + value.getString(), e);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static Log getLogger() {
+        return LogFactory.getLog(MongoDBParameters.class);
+    }
+}
@@ -0,0 +1,366 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Agent-wide MongoDB settings from the 'mongodb' section of application.yaml
+@Component
+@ConfigurationProperties(prefix = "mongodb")
+public class MongoDBProperties {
+
+    private final Client client = new Client();
+    private final Pool pool = new Pool();
+    private final Reader reader = new Reader();
+    private final Writer writer = new Writer();
+    private final Checkpoint checkpoint = new Checkpoint();
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+    private final Indexes indexes = new Indexes();
+
+    public Client getClient() {
+        return client;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Reader getReader() {
+        return reader;
+    }
+
+    public Writer getWriter() {
+        return writer;
+    }
+
+    public Checkpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    public VirtualThreads getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public Indexes getIndexes() {
+        return indexes;
+    }
+
+    // Shared MongoClient settings
+    public static class Client {
+        // Time an unused client is kept open before its connection pool is closed
+        private Duration idleTimeout = Duration.ofMinutes(5);
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+
+    // Connection pool settings, options set in the connection string take precedence
+    public static class Pool {
+        private int maxSize = 100;
+        private int minSize = 0;
+        private int maxConnecting = 2;
+        private Duration maxWaitTime = Duration.ofMinutes(2);
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(1);
+        private Duration maxConnectionLifeTime = Duration.ZERO;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public int getMaxConnecting() {
+            return maxConnecting;
+        }
+
+        public void setMaxConnecting(int maxConnecting) {
+            this.maxConnecting = maxConnecting;
+        }
+
+        public Duration getMaxWaitTime() {
+            return maxWaitTime;
+        }
+
+        public void setMaxWaitTime(Duration maxWaitTime) {
+            this.maxWaitTime = maxWaitTime;
+        }
+
+        public Duration getMaxConnectionIdleTime() {
+            return maxConnectionIdleTime;
+        }
+
+        public void setMaxConnectionIdleTime(Duration maxConnectionIdleTime) {
+            this.maxConnectionIdleTime = maxConnectionIdleTime;
+        }
+
+        public Duration getMaxConnectionLifeTime() {
+            return maxConnectionLifeTime;
+        }
+
+        public void setMaxConnectionLifeTime(Duration maxConnectionLifeTime) {
+            this.maxConnectionLifeTime = maxConnectionLifeTime;
+        }
+    }
+
+    // Reader settings
+    public static class Reader {
+        // Number of GridFS chunks fetched concurrently ahead of the chunk being read, 0 reads chunks one after another
+        private int prefetchChunks = 0;
+        // Maximum number of documents deleted with one deleteMany
+        private int deleteBatchSize = 500;
+        private final Cache cache = new Cache();
+
+        public int getPrefetchChunks() {
+            return prefetchChunks;
+        }
+
+        public void setPrefetchChunks(int prefetchChunks) {
+            this.prefetchChunks = prefetchChunks;
+        }
+
+        public int getDeleteBatchSize() {
+            return deleteBatchSize;
+        }
+
+        public void setDeleteBatchSize(int deleteBatchSize) {
+            this.deleteBatchSize = deleteBatchSize;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+    }
+
+    // Cache of documents looked up by docId, shared by getDocument, getDocumentMetadata and getDocumentBinary
+    public static class Cache {
+        // Maximum number of cached documents, 0 disables the cache
+        private int maxSize = 1000;
+        private Duration ttl = Duration.ofMinutes(1);
+        // Cache the full documents returned by getDocuments, instead of only the fields needed to list them
+        private boolean prefill = false;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public boolean isPrefill() {
+            return prefill;
+        }
+
+        public void setPrefill(boolean prefill) {
+            this.prefill = prefill;
+        }
+    }
+
+    // Writer settings
+    public static class Writer {
+        // Maximum number of writes in flight per collection, further writes wait for a running write to finish.
+        // Documents waiting in a bulk insert count as in flight, so this should be above the bulk max-count.
+        private int maxInFlight = 1000;
+        // Number of incoming buffers prefetched while a GridFS upload writes the current one
+        private int uploadPrefetch = 4;
+        private final Bulk bulk = new Bulk();
+        private final Dedup dedup = new Dedup();
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getUploadPrefetch() {
+            return uploadPrefetch;
+        }
+
+        public void setUploadPrefetch(int uploadPrefetch) {
+            this.uploadPrefetch = uploadPrefetch;
+        }
+
+        public Bulk getBulk() {
+            return bulk;
+        }
+
+        public Dedup getDedup() {
+            return dedup;
+        }
+    }
+
+    // Content deduplication settings for GridFS writes with Deduplicate Content set
+    public static class Dedup {
+        // Binaries up to this size are held in memory and hashed before upload, so duplicates are never sent.
+        // Larger binaries are hashed while they upload, and their chunks removed again if the content is stored already.
+        private DataSize bufferSize = DataSize.ofMegabytes(4);
+        // Maximum number of content hashes kept in memory, 0 looks up every hash in MongoDB
+        private int cacheSize = 10000;
+
+        public DataSize getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(DataSize bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+
+    // Bulk insert settings for non-GridFS writes, a max-count of 1 writes each document on its own
+    public static class Bulk {
+        private int maxCount = 500;
+        private DataSize maxSize = DataSize.ofMegabytes(4);
+        private Duration window = Duration.ofMillis(20);
+
+        public int getMaxCount() {
+            return maxCount;
+        }
+
+        public void setMaxCount(int maxCount) {
+            this.maxCount = maxCount;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+
+    // Local checkpoint settings for incremental reads
+    public static class Checkpoint {
+        private Path directory = Path.of("checkpoints");
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    // Runs blocking MongoDB calls scheduled on Reactor's bounded elastic scheduler on virtual threads, needs Java 21
+    public static class VirtualThreads {
+        private boolean enabled = false;
+        // Maximum number of tasks running at the same time, each on its own virtual thread
+        private int maxTasks = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxTasks() {
+            return maxTasks;
+        }
+
+        public void setMaxTasks(int maxTasks) {
+            this.maxTasks = maxTasks;
+        }
+    }
+
+    // Indexes on the fields the reader and writer filter on, checked at init and on the first write to a collection
+    public static class Indexes {
+        // Create missing indexes, report them in the log, or require them and fail the job
+        public enum Mode {
+            CREATE, REPORT, REQUIRE
+        }
+
+        private Mode mode = Mode.REPORT;
+        // Log the query plan of the job's query at init, when MongoDBIndexManager logs at debug
+        private boolean explain = true;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public boolean isExplain() {
+            return explain;
+        }
+
+        public void setExplain(boolean explain) {
+            this.explain = explain;
+        }
+    }
+}
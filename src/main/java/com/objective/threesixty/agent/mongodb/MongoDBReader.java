@@ -27,22 +27,39 @@ package com.objective.threesixty.agent.mongodb;
  */
 
 import com.mongodb.client.*;
-import com.mongodb.client.gridfs.GridFSBucket;
-import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.reactivestreams.client.FindPublisher;
 import com.objective.threesixty.Document;
 import com.objective.threesixty.MetadataType;
 import com.objective.threesixty.remoteagent.sdk.BinaryDetails;
 import com.objective.threesixty.remoteagent.sdk.agent.RepositoryReader;
 import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonTimestamp;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.codecs.DecoderContext;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import static com.mongodb.client.model.Filters.eq;
 import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
 
@@ -50,17 +67,58 @@ import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
 @Scope("singleton")
 public class MongoDBReader implements RepositoryReader {
 
+    private final MongoDBClientManager clientManager;
+    private final MongoDBCheckpointStore checkpointStore;
+    private final MongoDBMetrics metrics;
+    private final int prefetchChunks;
+    private final MongoDBDocumentCache documentCache;
+    private final boolean cachePrefill;
+    private final MongoDBBatchLoader<String, org.bson.Document> batchLoader =
+            new MongoDBBatchLoader<>(this::queryDocuments, DEFAULT_BATCH_SIZE);
+    private final int deleteBatchSize;
+    private final MongoDBBatchLoader<String, Boolean> deleteLoader;
+    private final MongoDBIndexManager indexManager;
+    private final MongoDBSchedulers schedulers;
+    private final Set<String> idTypes = ConcurrentHashMap.newKeySet();
+    private String uri;
     private MongoDatabase database;
+    private com.mongodb.reactivestreams.client.MongoDatabase reactiveDatabase;
+    private MongoDBCollectionKey cacheCollection;
     private boolean gridFS;
     private String idField;
+    private String dateField;
     private String query;
     private String collectionStr;
     private boolean useObjectId;
     private long startTime;
     private long endTime;
+    private MongoDBFindOptions findOptions;
+    private String syncMode;
+    private int scanPartitions;
+    private int scanThreads;
+    private boolean typedMetadata;
+
+    public MongoDBReader(MongoDBClientManager clientManager, MongoDBCheckpointStore checkpointStore,
+                         MongoDBMetrics metrics, MongoDBSchedulers schedulers, MongoDBProperties properties) {
+        this.clientManager = clientManager;
+        this.schedulers = schedulers;
+        this.checkpointStore = checkpointStore;
+        this.metrics = metrics;
+        this.prefetchChunks = properties.getReader().getPrefetchChunks();
+        this.documentCache = new MongoDBDocumentCache(properties.getReader().getCache().getMaxSize(),
+                properties.getReader().getCache().getTtl(), metrics);
+        this.cachePrefill = properties.getReader().getCache().isPrefill();
+        this.deleteBatchSize = Math.max(1, properties.getReader().getDeleteBatchSize());
+        this.deleteLoader = new MongoDBBatchLoader<>(this::deleteBatch, deleteBatchSize);
+        this.indexManager = new MongoDBIndexManager(properties);
+    }
 
     @Override
     public void init(CustomParameters parameters) {
+        metrics.record("init", () -> initialize(parameters));
+    }
+
+    private void initialize(CustomParameters parameters) {
         getLogger().debug("==> In init() ");
 
         // Retrieve all stored parameters for this Remote Agent
@@ -83,19 +141,51 @@ public class MongoDBReader implements RepositoryReader {
         // Get Query
         this.query = parameters.get(QUERY).getString();
 
-        // Creates a MongoDB Client using the stored Connection String parameter value
-        MongoClient mongoClient = MongoClients.create(uri);
-        getLogger().debug("==> MongoClient created using URI = " + uri);
+        // Get Sync Mode, defaults to running the full query
+        this.syncMode = MongoDBParameters.getString(parameters, SYNC_MODE, SYNC_MODE_QUERY);
+        getLogger().debug("==> Sync Mode = " + syncMode);
+
+        // Get the number of _id ranges the query is split into, and the number of them scanned at the same time
+        this.scanPartitions = MongoDBParameters.getPositiveInt(parameters, SCAN_PARTITIONS, 1);
+        this.scanThreads = MongoDBParameters.getPositiveInt(parameters, SCAN_THREADS, DEFAULT_SCAN_THREADS);
+        getLogger().debug("==> Scan Partitions = " + scanPartitions + ", Scan Threads = " + scanThreads);
+
+        // Get the metadata mapping, defaults to returning every value as a string
+        this.typedMetadata = METADATA_MAPPING_TYPED.equals(MongoDBParameters.getString(parameters, METADATA_MAPPING, METADATA_MAPPING_STRING));
+        getLogger().debug("==> Typed Metadata = " + typedMetadata);
+
+        // Gets the shared MongoDB Clients for the stored Connection String parameter value.
+        // Documents are listed with the Reactive Streams client, the other calls use the sync client.
+        MongoClient mongoClient = clientManager.acquire(uri);
+        com.mongodb.reactivestreams.client.MongoClient reactiveClient = clientManager.acquireReactive(uri);
+        getLogger().debug("==> MongoClient acquired using URI = " + uri);
+
+        // Releases the clients used by the previous init, they are closed once idle
+        if (this.uri != null) {
+            clientManager.release(this.uri);
+            clientManager.release(this.uri);
+        }
+        this.uri = uri;
+
+        // Get the cursor tuning options
+        this.findOptions = MongoDBFindOptions.from(parameters);
+        getLogger().debug("==> Find options: " + findOptions);
 
-        // Sets MongoDB Database to the stored Database parameter value
-        this.database = mongoClient.getDatabase(db);
+        // Sets MongoDB Database to the stored Database parameter value, using the configured read preference and read concern
+        this.database = findOptions.apply(mongoClient.getDatabase(db));
+        this.reactiveDatabase = findOptions.apply(reactiveClient.getDatabase(db));
 
         getLogger().debug("==> Database = " + db + ", Collection = " + collectionStr);
 
+        // Cached documents are kept per collection, so jobs sharing the reader never see each other's documents
+        this.cacheCollection = new MongoDBCollectionKey(uri, db, gridFS ? collectionStr + FILES_SUFFIX : collectionStr);
+        getLogger().debug("==> Document cache: " + documentCache);
+
         // Checks if an ID field has been provided
         // If not, use "_id" ObjectId and set the useObjectId boolean value
         this.idField = StringUtils.isEmpty(idField) ? _ID : idField;
         this.useObjectId = this.idField.equals(_ID);
+        this.idTypes.clear();
         getLogger().debug("==> ID Field = " + idField);
 
         // Get the start time and end time filters
@@ -103,230 +193,754 @@ public class MongoDBReader implements RepositoryReader {
         this.endTime = parameters.getEndTimeOfDateFilter();
         getLogger().debug("==> Start Time = " + startTime);
         getLogger().debug("==> End Time = " + endTime);
+
+        // Get the field the start time and end time filters apply to
+        this.dateField = getDateField(MongoDBParameters.getString(parameters, DATE_FIELD, null));
+        getLogger().debug("==> Date Field = " + dateField);
+
+        // Check the indexes on the fields the job looks documents up and filters by, and log the query plan
+        indexManager.verify(getQueryCollection(), getIndexedFields(),
+                findOptions.applyToScan(getQueryCollection().find(buildQuery())).projection(getQueryProjection()));
     }
 
     @Override
     public Stream<Document> getDocuments(CustomParameters parameters) {
+        return metrics.recordStream("getDocuments", () -> listDocuments(parameters));
+    }
+
+    private Stream<Document> listDocuments(CustomParameters parameters) {
         getLogger().debug("==> In getDocuments() ");
 
-        // Create Document Set to hold documents to be returned
-        Set<Document> docs = new HashSet<>();
+        org.bson.Document queryDoc = buildQuery();
+
+        // Check if only the changes since the previous run are wanted
+        if (SYNC_MODE_CHANGE_STREAM.equals(syncMode)) {
+            return getChangedDocuments(queryDoc);
+        }
+
+        // Check if the query is read in resumable pages
+        if (SYNC_MODE_KEYSET.equals(syncMode)) {
+            return getPagedDocuments(queryDoc);
+        }
+        return getQueriedDocuments(queryDoc, () -> {});
+    }
 
-        // Create MongoDB Query using stored query predicate parameter value
+    // Create MongoDB Query using stored query predicate parameter value
+    private org.bson.Document buildQuery() {
         org.bson.Document queryDoc = org.bson.Document.parse(query);
         getLogger().debug("==> Create Query Document using query = " + query);
 
-        // Create MongoDB Iterable to hold results from query
-        MongoIterable<?> results;
+        //  Add filter to retrieve documents within the specified start and end times
+        return setQueryDateFields(startTime, endTime, dateField, queryDoc);
+    }
 
-        // Check if GridFS is used
-        if (gridFS) {
-            // Create GridFS Bucket using database and collection
-            GridFSBucket gridFSBucket = GridFSBuckets.create(database, collectionStr);
-            getLogger().debug("==> Create GridFSBucket from database using collection = " + collectionStr);
+    // Get the path of the date field, inside the metadata for GridFS. "_id" filters on the ObjectId's creation time.
+    private String getDateField(String dateField) {
+        if (_ID.equals(dateField)) {
+            return _ID;
+        }
+        return (gridFS ? METADATA_DOT : "") + (StringUtils.isEmpty(dateField) ? LAST_MODIFIED : dateField);
+    }
 
-            //  Add filter to retrieve documents within the specified start and end times
-            setQueryDateFields(startTime, endTime, queryDoc);
+    // Get the fields the job looks documents up and filters by, which should be indexed
+    private List<String> getIndexedFields() {
+        List<String> fields = new ArrayList<>();
+        fields.add(getIdPath());
+        if (isTimeBound(startTime) || isTimeBound(endTime)) {
+            fields.add(dateField);
+        }
+        return fields;
+    }
 
-            // Execute query for GridFS
-            results = gridFSBucket.find(queryDoc);
+    // Return the documents matching the query, running onComplete once all of them have been read
+    private Stream<Document> getQueriedDocuments(org.bson.Document queryDoc, Runnable onComplete) {
+        // Split the query into _id ranges if configured
+        List<Bson> partitions = scanPartitions > 1 ? getPartitions() : List.of();
+
+        Flux<Document> documents;
+        if (partitions.size() > 1) {
+            // Scan the ranges with a cursor each, merging the documents as they arrive
+            getLogger().debug("==> Scanning " + partitions.size() + " partitions using " + scanThreads + " cursors");
+            documents = Flux.fromIterable(partitions)
+                    .flatMap(partition -> scanDocuments(Filters.and(queryDoc, partition)),
+                            Math.max(1, scanThreads), findOptions.batchSize());
         } else {
-            // Get collection from database
-            MongoCollection<org.bson.Document> collection = database.getCollection(collectionStr);
-            getLogger().debug("==> Get Collection from database using collection = " + collectionStr);
+            documents = scanDocuments(queryDoc);
+        }
 
-            // Execute query for non-GridFS
-            results = collection.find(queryDoc);
+        // The caller consumes a Stream, it blocks only while waiting for the next batch from MongoDB.
+        // Closing the stream cancels the scan, which closes the cursors.
+        Stream<Document> results = documents.toStream(findOptions.batchSize());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(onExhausted(results.iterator(), onComplete),
+                        Spliterator.NONNULL), false)
+                .onClose(results::close);
+    }
+
+    // Return the documents matching the filter using a single cursor on the Reactive Streams client
+    private Flux<Document> scanDocuments(Bson filter) {
+        // Execute query, only returning the fields needed to build the documents
+        FindPublisher<org.bson.Document> results = findOptions.applyToScan(getReactiveQueryCollection().find(filter))
+                .projection(getQueryProjection());
+        AtomicLong count = new AtomicLong();
+
+        // Documents are only pulled from MongoDB as they are requested
+        return Flux.from(results)
+                // Stop at the first document without the ID Field
+                .takeWhile(obj -> getDocId(obj) != null)
+                .mapNotNull(this::buildQueriedDocument)
+                .doOnNext(doc -> count.incrementAndGet())
+                .doFinally(signal -> getLogger().debug("==> Returned " + count.get() + " documents"));
+    }
+
+    // Split the _id key space into ranges holding similar numbers of documents, using split points from a random sample of ids.
+    // Returns no ranges when the collection is too small to split or its ids are not all of the same type.
+    private List<Bson> getPartitions() {
+        List<BsonValue> sample = new ArrayList<>();
+        getQueryCollection().aggregate(List.of(
+                        Aggregates.sample(scanPartitions * PARTITION_SAMPLES),
+                        Aggregates.project(Projections.include(_ID)),
+                        Aggregates.sort(Sorts.ascending(_ID))), BsonDocument.class)
+                .forEach(obj -> sample.add(obj.get(_ID)));
+
+        // Ranges only match ids of the same type as their bounds
+        if (sample.stream().map(BsonValue::getBsonType).distinct().count() > 1) {
+            getLogger().warn("==> Collection " + collectionStr + " has ids of different types, scanning it with a single cursor");
+            return List.of();
         }
+        return getPartitions(sample, scanPartitions);
+    }
 
-        // Iterate for each document returned from query
-        for (Object obj : results) {
-            String docId = null;
+    // Build the ranges from a sorted sample of ids, all of the same type.
+    // Ids of other types, missed by the sample, fall outside every range and are scanned by a last partition of their own.
+    static List<Bson> getPartitions(List<BsonValue> sample, int scanPartitions) {
+        // Take evenly spaced split points from the sorted sample
+        List<BsonValue> splits = new ArrayList<>();
+        for (int i = 1; i < scanPartitions && !sample.isEmpty(); i++) {
+            BsonValue split = sample.get(i * sample.size() / scanPartitions);
+            if (splits.isEmpty() || !splits.get(splits.size() - 1).equals(split)) {
+                splits.add(split);
+            }
+        }
 
-            // Check if GridFS is used
-            if (gridFS) {
-                // Cast object returned to GridFSFile
-                GridFSFile f = (GridFSFile) obj;
-
-                // Set docId for GridFS
-                if (!idField.equals("_id") && f.getMetadata() != null && f.getMetadata().containsKey(idField)) {
-                    docId = (String.valueOf(f.getMetadata().get(idField)));
-                } else if (idField.equals("_id") && f.getMetadata() != null) {
-                    docId = (String.valueOf(f.getObjectId()));
-                }
+        if (splits.isEmpty()) {
+            return List.of();
+        }
 
+        // Build the ranges between the split points, the first and last are open ended
+        List<Bson> partitions = new ArrayList<>();
+        for (int i = 0; i <= splits.size(); i++) {
+            if (i == 0) {
+                partitions.add(Filters.lt(_ID, splits.get(0)));
+            } else if (i == splits.size()) {
+                partitions.add(Filters.gte(_ID, splits.get(i - 1)));
             } else {
-                // Cast object returned to BSON document
-                org.bson.Document objDoc = (org.bson.Document) obj;
-
-                // Set docId for non-GridFS
-                if (!idField.equals("_id") && objDoc.containsKey(idField)) {
-                    docId = String.valueOf(objDoc.get(idField));
-                } else {
-                    docId = String.valueOf(objDoc.getObjectId("_id"));
+                partitions.add(Filters.and(Filters.gte(_ID, splits.get(i - 1)), Filters.lt(_ID, splits.get(i))));
+            }
+        }
+
+        // Range queries compare all numeric types with each other, so the last partition leaves out every number
+        BsonValue split = splits.get(0);
+        partitions.add(split.isNumber() || split.isDecimal128()
+                ? Filters.not(Filters.type(_ID, "number"))
+                : Filters.not(Filters.type(_ID, split.getBsonType())));
+        return partitions;
+    }
+
+    // Return the documents inserted or updated since the previous run, deleted documents are skipped.
+    // The first run returns the full query results, later runs resume the change stream from the checkpointed token.
+    private Stream<Document> getChangedDocuments(org.bson.Document queryDoc) {
+        String key = getCheckpointKey(SYNC_MODE_CHANGE_STREAM);
+        Optional<org.bson.Document> checkpoint = checkpointStore.load(key);
+
+        // Watch the collection, or the GridFS files collection
+        ChangeStreamIterable<org.bson.Document> changes = getQueryCollection()
+                .watch(List.of(Aggregates.match(Filters.in("operationType", OperationType.INSERT.getValue(),
+                        OperationType.UPDATE.getValue(), OperationType.REPLACE.getValue(), OperationType.DELETE.getValue()))))
+                .batchSize(findOptions.batchSize());
+
+        MongoChangeStreamCursor<ChangeStreamDocument<org.bson.Document>> cursor = null;
+        if (checkpoint.isPresent()) {
+            try {
+                cursor = changes.resumeAfter(checkpoint.get().get(RESUME_TOKEN, org.bson.Document.class).toBsonDocument()).cursor();
+                getLogger().debug("==> Resuming change stream from checkpoint " + key);
+            } catch (MongoCommandException e) {
+                // The token is no longer in the oplog, start over with the full query
+                getLogger().warn("==> Could not resume change stream from checkpoint " + key + ", running the full query", e);
+            }
+        }
+
+        if (cursor == null) {
+            // Take the position of the change stream before the full query, changes made while it runs are returned next run
+            BsonDocument startToken;
+            try (MongoChangeStreamCursor<ChangeStreamDocument<org.bson.Document>> start = changes.cursor()) {
+                startToken = start.getResumeToken();
+            }
+            if (startToken == null) {
+                getLogger().warn("==> Change stream did not return a resume token, the next run will also run the full query");
+                return getQueriedDocuments(queryDoc, () -> {});
+            }
+            return getQueriedDocuments(queryDoc, () -> saveResumeToken(key, startToken));
+        }
+
+        // Return the Stream of changed documents backed by the change stream, closing the stream closes the change stream
+        MongoChangeStreamCursor<ChangeStreamDocument<org.bson.Document>> changeCursor = cursor;
+        BsonTimestamp runStart = getClusterTime();
+        AtomicLong count = new AtomicLong();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new ChangeIterator(changeCursor, queryDoc, key, runStart),
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .peek(doc -> count.incrementAndGet())
+                .onClose(() -> {
+                    changeCursor.close();
+                    getLogger().debug("==> Returned " + count.get() + " changed documents");
+                });
+    }
+
+    // Get the server's time of its last operation, so changes can be compared with it rather than the agent's clock.
+    // Returns null if the server does not report one, change streams are then read until no change is left.
+    private BsonTimestamp getClusterTime() {
+        org.bson.Document reply = database.runCommand(new org.bson.Document("hello", 1));
+        if (reply.get("operationTime") instanceof BsonTimestamp operationTime) {
+            return operationTime;
+        }
+        org.bson.Document clusterTime = reply.get("$clusterTime", org.bson.Document.class);
+        return clusterTime != null && clusterTime.get("clusterTime") instanceof BsonTimestamp time ? time : null;
+    }
+
+    // Name the checkpoint after the settings it depends on, so a run with another query starts over.
+    // Paged runs resume inside the effective query, including the date range. A change stream position holds for any
+    // date range, as changed documents are filtered by the run's query, so a rolling range keeps resuming from it.
+    String getCheckpointKey(String syncMode) {
+        org.bson.Document queryDoc = SYNC_MODE_KEYSET.equals(syncMode) ? buildQuery() : org.bson.Document.parse(query);
+        return checkpointStore.key(collectionStr, uri, database.getName(), collectionStr, String.valueOf(gridFS),
+                idField, queryDoc.toJson(), syncMode);
+    }
+
+    // Return the documents matching the query in pages of the cursor batch size, each page starting after the last _id
+    // of the previous one. The last _id is checkpointed after each page, so a failed run resumes where it stopped.
+    private Stream<Document> getPagedDocuments(org.bson.Document queryDoc) {
+        String key = getCheckpointKey(SYNC_MODE_KEYSET);
+        Object lastId = checkpointStore.load(key).map(checkpoint -> checkpoint.get(LAST_ID)).orElse(null);
+        if (lastId != null) {
+            getLogger().debug("==> Resuming paged query after _id = " + lastId);
+        }
+
+        AtomicLong count = new AtomicLong();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PageIterator(queryDoc, key, lastId),
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .peek(doc -> count.incrementAndGet())
+                .onClose(() -> getLogger().debug("==> Returned " + count.get() + " documents"));
+    }
+
+    // Reads the query one page at a time, checkpointing the last _id once every document of a page has been returned.
+    // The checkpoint is cleared when the last page has been returned, so the next run starts from the beginning.
+    private class PageIterator implements Iterator<Document> {
+        private final org.bson.Document queryDoc;
+        private final String key;
+        private final Deque<Document> pending = new ArrayDeque<>();
+        private Object lastId;
+        private Object savedId;
+        private boolean done;
+        private boolean complete;
+
+        private PageIterator(org.bson.Document queryDoc, String key, Object lastId) {
+            this.queryDoc = queryDoc;
+            this.key = key;
+            this.lastId = lastId;
+            this.savedId = lastId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty()) {
+                if (done) {
+                    if (!complete) {
+                        checkpointStore.clear(key);
+                        complete = true;
+                    }
+                    return false;
+                }
+                // Every document of the previous page has been returned, checkpoint its last _id
+                if (lastId != null && !lastId.equals(savedId)) {
+                    checkpointStore.save(key, new org.bson.Document(LAST_ID, lastId));
+                    savedId = lastId;
+                }
+                readPage();
+            }
+            return true;
+        }
+
+        @Override
+        public Document next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        // Read the page following the last _id
+        private void readPage() {
+            Bson filter = lastId != null ? Filters.and(queryDoc, Filters.gt(_ID, lastId)) : queryDoc;
+            int pageSize = findOptions.batchSize();
+            int read = 0;
+            for (org.bson.Document obj : findOptions.applyToScan(getQueryCollection().find(filter))
+                    .projection(getQueryProjection())
+                    .sort(Sorts.ascending(_ID))
+                    .limit(pageSize)) {
+                read++;
+                lastId = obj.get(_ID);
+                Document doc = getDocId(obj) != null ? buildQueriedDocument(obj) : null;
+                if (doc != null) {
+                    pending.add(doc);
                 }
             }
+            getLogger().debug("==> Read page of " + read + " documents ending at _id = " + lastId);
+
+            // A short page is the last one
+            done = read < pageSize;
+        }
+    }
+
+    // Checkpoint the change stream position, the next run resumes from it
+    private void saveResumeToken(String key, BsonDocument resumeToken) {
+        checkpointStore.save(key, new org.bson.Document(RESUME_TOKEN, resumeToken));
+    }
+
+    // Get the collection the query runs against, the files collection for GridFS
+    private MongoCollection<org.bson.Document> getQueryCollection() {
+        String name = gridFS ? collectionStr + FILES_SUFFIX : collectionStr;
+        getLogger().debug("==> Get Collection from database using collection = " + name);
+        return database.getCollection(name);
+    }
+
+    // Get the query collection on the Reactive Streams client
+    private com.mongodb.reactivestreams.client.MongoCollection<org.bson.Document> getReactiveQueryCollection() {
+        return reactiveDatabase.getCollection(gridFS ? collectionStr + FILES_SUFFIX : collectionStr);
+    }
 
-            // Check if ID Field is found
-            if (docId != null) {
-                // Iterate and call getDocument() for each document, then add to Document Set
-                try {
-                    Document doc = getDocument(docId, parameters);
-                    docs.add(doc);
-                } catch (Exception e) {
-                    getLogger().error("==> Exception in calling getDocument()", e);
+    // Get the fields needed to build the documents from the query results.
+    // Prefilling the cache needs the full documents, so nothing is projected out.
+    private Bson getQueryProjection() {
+        if (cachePrefill) {
+            return null;
+        }
+        if (gridFS) {
+            return Projections.include(_ID, GRIDFS_FILENAME, GRIDFS_LENGTH,
+                    METADATA_DOT + SIMFLOFY_CONTENT_TYPE_FIELD, METADATA_DOT + idField);
+        }
+        return Projections.include(_ID, idField, SIMFLOFY_FILENAME_FIELD, SIMFLOFY_CONTENT_TYPE_FIELD, SIMFLOFY_LENGTH_FIELD);
+    }
+
+    // Build a document from a query result, no further lookup is needed
+    private Document buildQueriedDocument(org.bson.Document obj) {
+        try {
+            String docId = getDocId(obj);
+
+            // Cache the full document for the getDocument, getDocumentMetadata and getDocumentBinary calls that follow
+            if (cachePrefill) {
+                documentCache.put(getCacheKey(docId), obj);
+            }
+            return gridFS ? buildGridFSDocument(docId, obj) : buildDocument(docId, obj);
+        } catch (Exception e) {
+            getLogger().error("==> Exception in building document", e);
+            return null;
+        }
+    }
+
+    // Run the action once the iterator has been read to the end
+    private static <T> Iterator<T> onExhausted(Iterator<T> iterator, Runnable action) {
+        return new Iterator<>() {
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = iterator.hasNext();
+                if (!hasNext && !exhausted) {
+                    exhausted = true;
+                    action.run();
                 }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    // Reads the available changes in batches and returns the current state of each changed document.
+    // The resume token is checkpointed once every document read before it has been returned.
+    private class ChangeIterator implements Iterator<Document> {
+        private final MongoChangeStreamCursor<ChangeStreamDocument<org.bson.Document>> cursor;
+        private final org.bson.Document queryDoc;
+        private final String key;
+        private final BsonTimestamp runStart;
+        private final Deque<Document> pending = new ArrayDeque<>();
+        private BsonDocument resumeToken;
+        private BsonDocument savedToken;
+        private boolean done;
+
+        private ChangeIterator(MongoChangeStreamCursor<ChangeStreamDocument<org.bson.Document>> cursor,
+                               org.bson.Document queryDoc, String key, BsonTimestamp runStart) {
+            this.cursor = cursor;
+            this.queryDoc = queryDoc;
+            this.key = key;
+            this.runStart = runStart;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty()) {
+                // Every change read so far has been returned, checkpoint the position after them
+                if (resumeToken != null && !resumeToken.equals(savedToken)) {
+                    saveResumeToken(key, resumeToken);
+                    savedToken = resumeToken;
+                }
+                if (done) {
+                    return false;
+                }
+                readChanges();
+            }
+            return true;
+        }
+
+        @Override
+        public Document next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        // Read the next batch of changes without waiting for new ones
+        private void readChanges() {
+            // Keep the last change of each document, keyed by _id
+            Map<BsonValue, ChangeStreamDocument<org.bson.Document>> changes = new LinkedHashMap<>();
+            while (changes.size() < findOptions.batchSize()) {
+                ChangeStreamDocument<org.bson.Document> change = cursor.tryNext();
+                if (change == null) {
+                    // No more changes, the cursor's token covers everything read
+                    done = true;
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    break;
+                }
+                // Changes made after this run started are left for the next run, compared in the server's cluster time
+                if (runStart != null && change.getClusterTime() != null && change.getClusterTime().compareTo(runStart) > 0) {
+                    done = true;
+                    break;
+                }
+                resumeToken = change.getResumeToken();
+                BsonValue id = change.getDocumentKey() != null ? change.getDocumentKey().get(_ID) : null;
+                if (id == null) {
+                    continue;
+                }
+                changes.remove(id);
+                changes.put(id, change);
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            getLogger().debug("==> Read " + changes.size() + " changed documents from change stream");
+
+            // Look up the current state of the changed documents that still match the query
+            Map<BsonValue, org.bson.Document> found = new HashMap<>();
+            Bson filter = Filters.and(queryDoc, Filters.in(_ID, changes.keySet()));
+            for (org.bson.Document obj : findOptions.applyToLookup(getQueryCollection().find(filter)).projection(getQueryProjection())) {
+                found.put(obj.toBsonDocument().get(_ID), obj);
+            }
+
+            for (Map.Entry<BsonValue, ChangeStreamDocument<org.bson.Document>> entry : changes.entrySet()) {
+                org.bson.Document obj = found.get(entry.getKey());
+                if (obj != null) {
+                    Document doc = getDocId(obj) != null ? buildQueriedDocument(obj) : null;
+                    if (doc != null) {
+                        pending.add(doc);
+                    }
+                } else if (entry.getValue().getOperationType() == OperationType.DELETE) {
+                    // The SDK has no way to signal a deletion, so deleted documents are counted and skipped
+                    getLogger().debug("==> Skipped deleted document with _id = " + entry.getKey());
+                    metrics.countDocuments("skipDeleted", 1);
+                }
+                // Otherwise the document no longer matches the query
+            }
+        }
+    }
+
+    // Get docId from a GridFS file entry or BSON document returned by the query.
+    // The docId keeps the type of the ID Field value, so lookups by docId match the stored value.
+    private String getDocId(org.bson.Document obj) {
+        String docId = null;
+
+        // Check if GridFS is used
+        if (gridFS) {
+            // Get metadata of the GridFS file entry
+            org.bson.Document metadata = obj.get(METADATA, org.bson.Document.class);
+
+            // Set docId for GridFS
+            if (!idField.equals("_id") && metadata != null && metadata.containsKey(idField)) {
+                docId = getDocId(metadata.get(idField));
+            } else if (idField.equals("_id") && metadata != null) {
+                docId = getDocId(obj.get(_ID));
+            }
+
+        } else {
+            // Set docId for non-GridFS
+            if (!idField.equals("_id") && obj.containsKey(idField)) {
+                docId = getDocId(obj.get(idField));
             } else {
-                getLogger().error("==> Could not find ID Field '" + idField +"' specified in document");
-                break;
+                docId = MongoDBDocIds.encode(obj.get(_ID), true);
             }
         }
-        getLogger().debug("==> Returning " + docs.size() + " documents");
 
-        // Return the Stream of documents retrieved
-        return docs.stream();
+        // Check if ID Field is found
+        if (docId == null) {
+            getLogger().error("==> Could not find ID Field '" + idField +"' specified in document");
+        }
+        return docId;
+    }
+
+    // Encode an ID Field value as a docId, recording each type of value seen
+    private String getDocId(Object value) {
+        String type = value != null ? MongoDBDocIds.type(value) : null;
+        if (type != null && idTypes.add(type)) {
+            getLogger().debug("==> ID Field '" + idField + "' holds " + type + " values");
+        }
+        return MongoDBDocIds.encode(value, useObjectId);
     }
 
     @Override
     public Document getDocument(String docId, CustomParameters parameters) {
+        return metrics.record("getDocument", () -> lookupDocument(docId, parameters));
+    }
+
+    private Document lookupDocument(String docId, CustomParameters parameters) {
         getLogger().debug("==> In getDocument() for docId = " + docId);
 
-        // Create document attributes for building document to be returned
-        String docName ="";
-        String contentType = "";
-        long size = 0L;
+        // Find single document using docId
+        return buildFoundDocument(docId, findDocument(docId));
+    }
 
-        // Create Filter to return single document with docId
-        Bson eq;
-        if (idField.equals("_id")) {
-            eq = eq(idField, new ObjectId(docId));
-        } else {
-            if (gridFS) {
-                eq = eq(METADATA_DOT+idField, docId);
-            } else {
-                eq = eq(idField, docId);
+    // Get the documents for many docIds, found with one $in query per batch of ids. Ids that are not found are left out.
+    public Map<String, Document> getDocuments(Collection<String> docIds, CustomParameters parameters) {
+        getLogger().debug("==> In getDocuments() for " + docIds.size() + " docIds");
+
+        Map<String, org.bson.Document> found = findDocuments(docIds);
+        Map<String, Document> documents = new LinkedHashMap<>();
+        for (String docId : docIds) {
+            Document doc = buildFoundDocument(docId, found.get(docId));
+            if (doc != null) {
+                documents.put(docId, doc);
             }
         }
+        return documents;
+    }
 
+    // Build document from the document, or GridFS files collection entry, found for docId
+    private Document buildFoundDocument(String docId, org.bson.Document first) {
         // Check if using GridFS
         if (gridFS) {
-            // Execute Query to find single document using docId
-            GridFSBucket gridFSBucket = GridFSBuckets.create(database, parameters.get(COLLECTION).getString());
-            GridFSFile first = gridFSBucket.find(eq).first();
-
-            // If document found, get document attributes
-            if (first != null && first.getMetadata() != null) {
-                org.bson.Document metadata = first.getMetadata();
-                docName = first.getFilename();
-                size = first.getLength();
-                contentType = String.valueOf(metadata.get(SIMFLOFY_CONTENT_TYPE_FIELD));
-
-                // Build document using document attributes
-                Document doc = Document.newBuilder()
-                        .setId(docId)
-                        .setName(docName)
-                        .setMimeType(contentType)
-                        .setSize(size)
-                        .build();
-
-                getLogger().debug("==> Adding GridFS document with docId =  " + docId + ", docName = " + docName +
-                        ", contentType = " + contentType + ", size = " + size);
-
-                // Return built document
-                return doc;
-
+            // If document found, build document from its attributes
+            if (first != null && first.get(METADATA) != null) {
+                return buildGridFSDocument(docId, first);
             } else {
                 getLogger().error("==> Could not find GridFS doc: " + docId);
             }
         } else {
-            // Execute Query to find single document using docId
-            MongoCollection<org.bson.Document> collection = database.getCollection(parameters.get(COLLECTION).getString());
-            org.bson.Document first = collection.find(eq).first();
-
-            // If document found, get document attributes
+            // If document found, build document from its attributes
             if (first != null) {
+                return buildDocument(docId, first);
+            } else {
+                getLogger().error("==> Could not find non-GridFS document: " + docId);
+            }
+        }
+        // Returns null document if unable to find document with docId
+        return null;
+    }
 
-                // Iterate through the keys to pull document attributes
-                for (String key : first.keySet()) {
-                    getLogger().trace("==> key = " + key);
-                    getLogger().trace("==> key value = " + first.get(key));
+    // Find the document, or GridFS files collection entry, with docId.
+    // getDocument, getDocumentMetadata and getDocumentBinary are usually called one after another for the same docId,
+    // so the document is cached and the later calls do not query MongoDB again.
+    // Concurrent lookups that miss the cache are coalesced into a single $in query.
+    private org.bson.Document findDocument(String docId) {
+        // Check the docId before it joins a batch, so an invalid docId only fails its own lookup
+        getIdValue(docId);
+        return documentCache.get(getCacheKey(docId), () -> batchLoader.get(docId));
+    }
 
-                    // Get document attributes
-                    switch (key) {
-                        case "simflofy_filename" -> docName = first.get(key).toString();
-                        case "simflofy_content_type" -> contentType = first.get(key).toString();
-                        case "simflofy_length" -> size = Long.parseLong(first.get(key).toString());
-                    }
+    // Find the documents, or GridFS files collection entries, for many docIds, querying only those not cached
+    private Map<String, org.bson.Document> findDocuments(Collection<String> docIds) {
+        Map<String, org.bson.Document> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String docId : docIds) {
+            org.bson.Document cached = documentCache.get(getCacheKey(docId));
+            if (cached != null) {
+                found.put(docId, cached);
+            } else {
+                missing.add(docId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            queryDocuments(missing).forEach((docId, obj) -> {
+                documentCache.put(getCacheKey(docId), obj);
+                found.put(docId, obj);
+            });
+        }
+        return found;
+    }
+
+    // Query the documents for many docIds, using one $in query per cursor batch size of ids
+    private Map<String, org.bson.Document> queryDocuments(Collection<String> docIds) {
+        Map<String, org.bson.Document> found = new HashMap<>();
+        List<String> ids = new ArrayList<>(docIds);
+        int chunk = findOptions.batchSize();
+        for (int i = 0; i < ids.size(); i += chunk) {
+            List<Object> values = ids.subList(i, Math.min(ids.size(), i + chunk)).stream().map(this::getIdValue).toList();
+            for (org.bson.Document obj : findOptions.applyToLookup(getQueryCollection().find(Filters.in(getIdPath(), values)))) {
+                String docId = getDocId(obj);
+                if (docId != null && docIds.contains(docId)) {
+                    found.putIfAbsent(docId, obj);
                 }
+            }
+        }
+        getLogger().debug("==> Found " + found.size() + " of " + ids.size() + " documents by docId");
+        return found;
+    }
 
-                // Build document using document attributes
-                Document doc = Document.newBuilder()
-                        .setId(docId)
-                        .setName(docName)
-                        .setMimeType(contentType)
-                        .setSize(size)
-                        .build();
+    private MongoDBDocumentCache.Key getCacheKey(String docId) {
+        return new MongoDBDocumentCache.Key(cacheCollection, idField, docId);
+    }
 
-                getLogger().debug("==> Adding document with docId =  " + docId + ", docName = " + docName +
-                        ", contentType = " + contentType + ", size = " + size);
+    // Create Filter to return single document with docId
+    private Bson getIdFilter(String docId) {
+        return eq(getIdPath(), getIdValue(docId));
+    }
 
-                // Return built document
-                return doc;
+    // Get the field holding the docId, inside the metadata for GridFS
+    private String getIdPath() {
+        if (idField.equals("_id")) {
+            return idField;
+        }
+        return gridFS ? METADATA_DOT + idField : idField;
+    }
 
-            } else {
-                getLogger().error("==> Could not find non-GridFS document: " + docId);
+    // Get the value stored for docId, decoding the type kept in the docId
+    private Object getIdValue(String docId) {
+        return MongoDBDocIds.decode(docId, useObjectId);
+    }
+
+    // Build document from a GridFS files collection entry
+    private Document buildGridFSDocument(String docId, org.bson.Document file) {
+        Number length = file.get(GRIDFS_LENGTH, Number.class);
+        return buildGridFSDocument(docId, file.getString(GRIDFS_FILENAME), length != null ? length.longValue() : 0L,
+                file.get(METADATA, org.bson.Document.class));
+    }
+
+    // Build document from GridFS file attributes
+    private Document buildGridFSDocument(String docId, String docName, long size, org.bson.Document metadata) {
+        // Get content type from the file's metadata
+        String contentType = String.valueOf(metadata.get(SIMFLOFY_CONTENT_TYPE_FIELD));
+
+        // Build document using document attributes
+        Document doc = Document.newBuilder()
+                .setId(docId)
+                .setName(docName)
+                .setMimeType(contentType)
+                .setSize(size)
+                .build();
+
+        getLogger().debug("==> Adding GridFS document with docId =  " + docId + ", docName = " + docName +
+                ", contentType = " + contentType + ", size = " + size);
+
+        // Return built document
+        return doc;
+    }
+
+    // Build document from a non-GridFS BSON document
+    private Document buildDocument(String docId, org.bson.Document first) {
+        // Create document attributes for building document to be returned
+        String docName ="";
+        String contentType = "";
+        long size = 0L;
+
+        // Iterate through the keys to pull document attributes
+        for (String key : first.keySet()) {
+            getLogger().trace("==> key = " + key);
+            getLogger().trace("==> key value = " + first.get(key));
+
+            // Get document attributes
+            switch (key) {
+                case SIMFLOFY_FILENAME_FIELD -> docName = first.get(key).toString();
+                case SIMFLOFY_CONTENT_TYPE_FIELD -> contentType = first.get(key).toString();
+                case SIMFLOFY_LENGTH_FIELD -> size = Long.parseLong(first.get(key).toString());
             }
         }
-        // Returns null document if unable to find document with docId
-        return null;
+
+        // Build document using document attributes
+        Document doc = Document.newBuilder()
+                .setId(docId)
+                .setName(docName)
+                .setMimeType(contentType)
+                .setSize(size)
+                .build();
+
+        getLogger().debug("==> Adding document with docId =  " + docId + ", docName = " + docName +
+                ", contentType = " + contentType + ", size = " + size);
+
+        // Return built document
+        return doc;
     }
 
     @Override
     public Map<String, MetadataType>
     getDocumentMetadata(String docId, CustomParameters parameters) {
+        return metrics.record("getDocumentMetadata", () -> lookupDocumentMetadata(docId, parameters));
+    }
+
+    private Map<String, MetadataType> lookupDocumentMetadata(String docId, CustomParameters parameters) {
         getLogger().debug("==> In getDocumentMetadata() ");
 
-        // Create filter to return metadata from single document
-        Bson eq;
-        if (idField.equals("_id")) {
-            eq = eq(idField, new ObjectId(docId));
-        } else {
-            if (gridFS) {
-                eq = eq(METADATA_DOT+idField, docId);
-            } else {
-                eq = eq(idField, docId);
-            }
+        // Find single document using docId
+        return buildMetadata(docId, findDocument(docId));
+    }
+
+    // Get the metadata for many docIds, found with one $in query per batch of ids.
+    // Every docId is returned, with an empty map if its document is not found.
+    public Map<String, Map<String, MetadataType>> getDocumentMetadata(Collection<String> docIds, CustomParameters parameters) {
+        getLogger().debug("==> In getDocumentMetadata() for " + docIds.size() + " docIds");
+
+        Map<String, Map<String, MetadataType>> metadata = new LinkedHashMap<>();
+        Map<String, org.bson.Document> found = findDocuments(docIds);
+        for (String docId : docIds) {
+            metadata.put(docId, buildMetadata(docId, found.get(docId)));
         }
+        return metadata;
+    }
 
+    // Build the metadata from the document, or GridFS files collection entry, found for docId
+    Map<String, MetadataType> buildMetadata(String docId, org.bson.Document first) {
         // Create MetadataTypeMap to hold metadata from document
         Map<String, MetadataType> metadataTypeMap = new HashMap<>();
 
         // Check if using GridFS
         if (gridFS) {
-            // Execute Query to find single document using docId
-            GridFSBucket gridFSBucket = GridFSBuckets.create(database, parameters.get(COLLECTION).getString());
-            GridFSFile first = gridFSBucket.find(eq).first();
-
             // If document found, get document's metadata
-            if (first != null && first.getMetadata() != null) {
+            org.bson.Document metadata = first != null ? first.get(METADATA, org.bson.Document.class) : null;
+            if (metadata != null) {
                 getLogger().debug("*** New Document with docID = " + docId + " ***");
-                org.bson.Document metadata = first.getMetadata();
 
                 // Iterate through the keys to pull and store document metadata
                 for (String key : metadata.keySet()) {
                     getLogger().trace("==> key = " + key);
                     getLogger().trace("==> key value = " + metadata.get(key));
-                    metadataTypeMap.put(key, MetadataType.newBuilder().setString(String.valueOf(metadata.get(key))).build());
+                    metadataTypeMap.put(key, toMetadataType(metadata.get(key)));
                 }
             } else {
                 getLogger().error("==> getDocumentMetadata():  Could not find GridFS document: " + docId);
             }
 
         } else {
-            // Execute Query to find single document using docId
-            MongoCollection<org.bson.Document> collection = database.getCollection(parameters.get(COLLECTION).getString());
-            org.bson.Document first = collection.find(eq).first();
-
             // If document found, get document metadata
             if (first != null) {
                 getLogger().debug("*** New Document with docID = " + docId + " ***");
@@ -335,7 +949,7 @@ public class MongoDBReader implements RepositoryReader {
                 for (String key : first.keySet()) {
                     getLogger().trace("==> key = " + key);
                     getLogger().trace("==> key value = " + first.get(key));
-                    metadataTypeMap.put(key, MetadataType.newBuilder().setString(String.valueOf(first.get(key))).build());
+                    metadataTypeMap.put(key, toMetadataType(first.get(key)));
                 }
             } else {
                 getLogger().error("==> getDocumentMetadata():  Could not find non-GridFS document: " + docId);
@@ -345,8 +959,25 @@ public class MongoDBReader implements RepositoryReader {
         return metadataTypeMap;
     }
 
+    // Map a stored value to its metadata type when typed, otherwise to its string form
+    private MetadataType toMetadataType(Object value) {
+        if (typedMetadata) {
+            return MongoDBMetadataMapper.toMetadataType(value);
+        }
+        return MetadataType.newBuilder().setString(String.valueOf(value)).build();
+    }
+
     @Override
     public BinaryDetails getDocumentBinary(String docId, CustomParameters parameters) {
+        return getDocumentBinary(docId, 0L, -1L, parameters);
+    }
+
+    // Get a byte range of the document's binary, a negative length reads to the end of the binary
+    public BinaryDetails getDocumentBinary(String docId, long offset, long length, CustomParameters parameters) {
+        return metrics.record("getDocumentBinary", () -> readDocumentBinary(docId, offset, length, parameters));
+    }
+
+    private BinaryDetails readDocumentBinary(String docId, long offset, long length, CustomParameters parameters) {
         getLogger().debug("==> In getDocumentBinary() ");
 
         // Create BinaryDetails with null input stream and default MIME type
@@ -354,24 +985,29 @@ public class MongoDBReader implements RepositoryReader {
 
         // Check if using GridFS
         if (gridFS) {
-            // Create filter to find document with docId
-            Bson eq;
-            if (idField.equals("_id")) {
-                eq = eq(idField, new ObjectId(docId));
-            } else {
-                eq = eq(METADATA_DOT + idField, docId);
-            }
-
-            // Execute query to return single document
-            GridFSBucket gridFSBucket = GridFSBuckets.create(database, parameters.get(COLLECTION).getString());
-            GridFSFile first = gridFSBucket.find(eq).first();
+            // Find the files collection entry using docId
+            org.bson.Document first = findDocument(docId);
 
             // If document found, get content type attribute, defaults to "application/octet-stream"
             if (first != null) {
-                String mimetype = first.getMetadata() != null ? String.valueOf(first.getMetadata().get(SIMFLOFY_CONTENT_TYPE_FIELD)) : "application/octet-stream";
+                GridFSFile file = toGridFSFile(first);
+                String mimetype = file.getMetadata() != null ? String.valueOf(file.getMetadata().get(SIMFLOFY_CONTENT_TYPE_FIELD)) : "application/octet-stream";
+
+                // Deduplicated files may reference content stored in the chunks of another file
+                Object contentId = file.getMetadata() != null ? file.getMetadata().get(CONTENT_ID) : null;
+                boolean shared = contentId instanceof ObjectId id && !file.getId().equals(new BsonObjectId(id));
+                if (shared) {
+                    getLogger().debug("==> Content of " + docId + " is stored in " + contentId);
+                    file = new GridFSFile(new BsonObjectId((ObjectId) contentId), file.getFilename(), file.getLength(),
+                            file.getChunkSize(), file.getUploadDate(), file.getMetadata());
+                }
 
-                // Set input stream and MIME type of document
-                bd.setInputStream(gridFSBucket.openDownloadStream(first.getObjectId()));
+                // Set input stream and MIME type of document.
+                // The chunks are read using the files entry already found, so the files collection is not queried again.
+                // Without prefetching a single cursor reads the range, otherwise chunks are fetched concurrently.
+                getLogger().debug("==> Reading GridFS range offset = " + offset + ", length = " + length + ", prefetch = " + prefetchChunks);
+                bd.setInputStream(metrics.countBytesOut(new MongoDBGridFSInputStream(database.getCollection(collectionStr + CHUNKS_SUFFIX), file,
+                        offset, length, prefetchChunks, task -> schedulers.blocking().schedule(task))));
                 bd.setMimeType(mimetype);
             }
         }
@@ -379,74 +1015,134 @@ public class MongoDBReader implements RepositoryReader {
         return bd;
     }
 
+    // Decode a GridFS files collection entry
+    private GridFSFile toGridFSFile(org.bson.Document file) {
+        return database.getCodecRegistry().get(GridFSFile.class)
+                .decode(new BsonDocumentReader(file.toBsonDocument()), DecoderContext.builder().build());
+    }
+
     @Override
     public void deleteDocument(String docId, CustomParameters parameters) {
+        metrics.record("deleteDocument", () -> removeDocument(docId, parameters));
+    }
+
+    private void removeDocument(String docId, CustomParameters parameters) {
         getLogger().debug("==> In deleteDocument() for docId = " + docId);
 
-        // Create Filter to delete single document with docId
-        Bson eq;
-        if (idField.equals("_id")) {
-            eq = eq(idField, new ObjectId(docId));
+        // Check the docId before it joins a batch, so an invalid docId only fails its own delete
+        getIdValue(docId);
+
+        // Concurrent deletes are coalesced into batched deletes
+        if (Boolean.TRUE.equals(deleteLoader.get(docId))) {
+            getLogger().debug("==> Document deleted: " + docId);
         } else {
-            if (gridFS) {
-                eq = eq(METADATA_DOT+idField, docId);
-            } else {
-                eq = eq(idField, docId);
-            }
+            getLogger().error("==> Could not delete: " + docId);
         }
+    }
 
-        // Check if using GridFS
-        if (gridFS) {
-            // Create GridFSBucket
-            GridFSBucket gridFSBucket = GridFSBuckets.create(database, parameters.get(COLLECTION).getString());
+    // Delete the documents for many docIds, in batches of the configured delete batch size.
+    // Returns whether each docId was deleted, false if its document was not found.
+    public Map<String, Boolean> deleteDocuments(Collection<String> docIds, CustomParameters parameters) {
+        getLogger().debug("==> In deleteDocuments() for " + docIds.size() + " docIds");
 
-            // Set fileId to use for delete operation
-            ObjectId fileId = null;
-            if (useObjectId) {
-                fileId = new ObjectId(docId);
-            } else {
-                GridFSFile first = gridFSBucket.find(eq).first();
-                if (first != null && first.getMetadata() != null) {
-                    fileId = new ObjectId(String.valueOf(first.getObjectId()));
-                }
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(docIds));
+        for (int i = 0; i < ids.size(); i += deleteBatchSize) {
+            results.putAll(deleteBatch(ids.subList(i, Math.min(ids.size(), i + deleteBatchSize))));
+        }
+        return results;
+    }
+
+    // Delete a batch of documents with deleteMany, from the files and chunks collections for GridFS
+    private Map<String, Boolean> deleteBatch(Collection<String> docIds) {
+        // Find the _id of each document to delete, and the docId it belongs to
+        Map<Object, String> found = new LinkedHashMap<>();
+        Set<Object> contentIds = new LinkedHashSet<>();
+        boolean deduplicated = false;
+        List<Object> values = docIds.stream().map(this::getIdValue).toList();
+        for (org.bson.Document obj : findOptions.applyToLookup(getQueryCollection().find(Filters.in(getIdPath(), values)))
+                .projection(Projections.include(_ID, getIdPath(), METADATA_DOT + CONTENT_ID))) {
+            String docId = useObjectId ? MongoDBDocIds.encode(obj.get(_ID), true) : getDocId(obj);
+            if (docId != null && docIds.contains(docId)) {
+                found.put(obj.get(_ID), docId);
+
+                // The chunks of a deduplicated file may be stored under another file's id
+                org.bson.Document metadata = obj.get(METADATA, org.bson.Document.class);
+                Object contentId = metadata != null ? metadata.get(CONTENT_ID) : null;
+                contentIds.add(contentId != null ? contentId : obj.get(_ID));
+                deduplicated |= contentId != null;
             }
+        }
 
-            if (fileId!=null) {
-                // Execute delete of GridFS document using Object ID
-                gridFSBucket.delete(fileId);
-                getLogger().debug("==> Document deleted: " + docId);
+        if (!found.isEmpty()) {
+            List<Object> ids = new ArrayList<>(found.keySet());
+            if (gridFS) {
+                // Delete the files entries before their chunks, as GridFSBucket.delete does, so a failure part way
+                // leaves orphaned chunks rather than files without content
+                MongoCollection<org.bson.Document> files = database.getCollection(collectionStr + FILES_SUFFIX);
+                files.deleteMany(Filters.in(_ID, ids));
+
+                // Keep deduplicated content while other files still reference it
+                if (deduplicated) {
+                    List<Object> contents = new ArrayList<>(contentIds);
+                    for (org.bson.Document file : files.find(Filters.or(Filters.in(_ID, contents), Filters.in(METADATA_DOT + CONTENT_ID, contents)))
+                            .projection(Projections.include(_ID, METADATA_DOT + CONTENT_ID))) {
+                        org.bson.Document metadata = file.get(METADATA, org.bson.Document.class);
+                        contentIds.remove(metadata != null && metadata.get(CONTENT_ID) != null ? metadata.get(CONTENT_ID) : file.get(_ID));
+                    }
+                }
+                database.getCollection(collectionStr + CHUNKS_SUFFIX).deleteMany(Filters.in(FILES_ID, new ArrayList<>(contentIds)));
             } else {
-                getLogger().error("==> Could not delete: " + docId);
+                database.getCollection(collectionStr).deleteMany(Filters.in(_ID, ids));
             }
-
-        } else {
-            // Create MongoCollection
-            MongoCollection<org.bson.Document> collection = database.getCollection(parameters.get(COLLECTION).getString());
-
-            // Execute delete of non-GridFS document using Filter
-            collection.deleteOne(eq);
-            getLogger().debug("==> Document deleted: " + docId);
         }
+        getLogger().debug("==> Deleted " + found.size() + " of " + docIds.size() + " documents");
 
+        Set<String> deleted = new HashSet<>(found.values());
+        Map<String, Boolean> results = new HashMap<>();
+        for (String docId : docIds) {
+            results.put(docId, deleted.contains(docId));
+            documentCache.invalidate(getCacheKey(docId));
+        }
+        return results;
     }
 
-    // Add start time and end time filters to query
-    private void setQueryDateFields(long startTime, long endTime, org.bson.Document queryObject) {
+    // Add start time and end time filters to query.
+    // The filter is combined with the query using $and, so conditions the query has on the date field are kept.
+    static org.bson.Document setQueryDateFields(long startTime, long endTime, String dateField, org.bson.Document queryObject) {
         org.bson.Document tdoc = new org.bson.Document();
-        if (startTime > 0L) {
+        boolean objectId = dateField.equals(_ID);
+        if (isTimeBound(startTime)) {
             Calendar cal = Calendar.getInstance();
             cal.setTimeInMillis(startTime);
-            tdoc.put("$gte", cal.getTime());
+            tdoc.put("$gte", objectId ? getObjectIdBound(cal.getTime(), false) : cal.getTime());
         }
-        if (endTime > 0L) {
+        if (isTimeBound(endTime)) {
             Calendar cal = Calendar.getInstance();
             cal.setTimeInMillis(endTime);
-            tdoc.put("$lte", cal.getTime());
+            tdoc.put("$lte", objectId ? getObjectIdBound(cal.getTime(), true) : cal.getTime());
         }
-        if (!tdoc.isEmpty()) {
-            String queryField = METADATA_DOT+LAST_MODIFIED;
-            queryObject.put(queryField, tdoc);
+        if (tdoc.isEmpty()) {
+            return queryObject;
         }
+        org.bson.Document dateFilter = new org.bson.Document(dateField, tdoc);
+        return queryObject.isEmpty() ? dateFilter : new org.bson.Document("$and", List.of(queryObject, dateFilter));
+    }
+
+    // Check if a start or end time bounds the date range.
+    // Without a date filter the SDK reports Long.MIN_VALUE and Long.MAX_VALUE, which like 0 mean no bound.
+    private static boolean isTimeBound(long time) {
+        return time > 0L && time != Long.MAX_VALUE;
+    }
+
+    // Get the lowest or highest ObjectId created in the second of the given time.
+    // ObjectIds hold unsigned 32-bit seconds, so times outside that range are clamped to the first or last second.
+    static ObjectId getObjectIdBound(Date time, boolean upper) {
+        long seconds = Math.min(Math.max(Math.floorDiv(time.getTime(), 1000L), 0L), 0xFFFFFFFFL);
+        byte[] bytes = new byte[12];
+        Arrays.fill(bytes, upper ? (byte) 0xff : 0);
+        ByteBuffer.wrap(bytes).putInt((int) seconds);
+        return new ObjectId(bytes);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ThreadFactory;
+
+// Scheduler for the agent's blocking MongoDB calls, such as GridFS chunk prefetching.
+// When enabled in application.yaml it runs each task on a new virtual thread, so the number of blocking calls in flight
+// is limited by the connection pool rather than by platform threads. Reactor's global schedulers, used by the SDK and
+// other beans, are left as they are.
+@Component
+public class MongoDBSchedulers implements DisposableBean {
+
+    private final Scheduler blocking;
+    private final boolean dedicated;
+
+    public MongoDBSchedulers(MongoDBProperties properties) {
+        MongoDBProperties.VirtualThreads settings = properties.getVirtualThreads();
+
+        // Virtual threads need Java 21, older runtimes keep the platform threads
+        int javaVersion = Runtime.version().feature();
+        if (settings.isEnabled() && javaVersion < 21) {
+            getLogger().warn("==> Virtual threads need Java 21, running on Java " + javaVersion + " with platform threads");
+        }
+
+        if (settings.isEnabled() && javaVersion >= 21) {
+            // A scheduler of our own, created from the factory's defaults without installing the factory
+            ThreadFactory threadFactory = new VirtualThreadTaskExecutor("mongo-virtual-").getVirtualThreadFactory();
+            int maxTasks = Math.max(1, settings.getMaxTasks());
+            this.blocking = new Schedulers.Factory() {
+            }.newThreadPerTaskBoundedElastic(maxTasks, Integer.MAX_VALUE, threadFactory);
+            this.dedicated = true;
+            getLogger().info("==> Blocking MongoDB calls run on virtual threads, up to " + maxTasks + " at the same time");
+        } else {
+            this.blocking = Schedulers.boundedElastic();
+            this.dedicated = false;
+        }
+    }
+
+    // Get the scheduler blocking MongoDB calls run on
+    public Scheduler blocking() {
+        return blocking;
+    }
+
+    // Dispose the virtual thread scheduler on shutdown, the shared bounded elastic scheduler is left to Reactor
+    @Override
+    public void destroy() {
+        if (dedicated) {
+            blocking.dispose();
+        }
+    }
+
+    private Log getLogger() {
+        return LogFactory.getLog(getClass());
+    }
+}
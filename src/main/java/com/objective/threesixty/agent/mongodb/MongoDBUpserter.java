@@ -0,0 +1,74 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.objective.threesixty.Document;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+
+// Finds the stored copies of a source document for upsert writes, matched on source_repository_id through an index
+// checked the first time a collection is written. A copy is current when its last_modified is not older than the
+// incoming document's modified date, so unchanged documents are skipped on re-runs.
+final class MongoDBUpserter {
+
+    private final MongoDBIndexManager indexManager;
+
+    MongoDBUpserter(MongoDBIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    // Get the stored copies of the document with their _id, last_modified and, for GridFS, content id.
+    // Documents written before upsert was used may have been stored more than once.
+    Mono<List<org.bson.Document>> find(MongoDBCollectionKey collectionKey, MongoCollection<org.bson.Document> collection,
+                                       boolean gridFS, Document doc) {
+        String prefix = gridFS ? METADATA_DOT : "";
+        return indexManager.ensure(collectionKey, collection, List.of(prefix + SIMFLOFY_SOURCE_REPOSITORY_ID_FIELD))
+                .thenMany(Flux.from(collection.find(eq(prefix + SIMFLOFY_SOURCE_REPOSITORY_ID_FIELD, doc.getId()))
+                        .projection(Projections.include(_ID, prefix + LAST_MODIFIED, METADATA_DOT + CONTENT_ID))))
+                .collectList();
+    }
+
+    // Whether a stored copy is at least as recent as the incoming document
+    static boolean isCurrent(List<org.bson.Document> stored, boolean gridFS, Document doc) {
+        long modified = doc.getModifiedDate().getSeconds() * 1000;
+        for (org.bson.Document copy : stored) {
+            org.bson.Document fields = gridFS ? copy.get(METADATA, org.bson.Document.class) : copy;
+            if (fields != null && fields.get(LAST_MODIFIED) instanceof Date lastModified && lastModified.getTime() >= modified) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
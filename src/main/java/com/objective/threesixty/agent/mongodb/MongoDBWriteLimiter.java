@@ -0,0 +1,117 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limits the number of writes in flight at the same time.
+// Further writes are only subscribed once a running write finishes, so callers are held back instead of queueing work.
+// Waiting writes are started by a drain loop, so writes that finish while they are subscribed start the next one
+// from the loop rather than recursively.
+final class MongoDBWriteLimiter {
+
+    private final int maxInFlight;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private final AtomicInteger draining = new AtomicInteger();
+    private int inFlight;
+
+    MongoDBWriteLimiter(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // Subscribe to the source once a permit is available, the permit is released when the source terminates or is cancelled
+    <T> Mono<T> limit(Mono<T> source) {
+        return Mono.create(sink -> {
+            Disposable.Swap subscription = Disposables.swap();
+            Runnable start = () -> subscription.update(source
+                    .doFinally(signal -> release())
+                    .subscribe(sink::success, sink::error, () -> sink.success()));
+
+            // Remove a waiting write or cancel a running write
+            sink.onCancel(() -> {
+                if (!removeWaiting(start)) {
+                    subscription.dispose();
+                }
+            });
+
+            synchronized (this) {
+                waiting.add(start);
+            }
+            drain();
+        });
+    }
+
+    // Number of writes currently in flight
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    // Number of writes waiting for a permit
+    synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    private synchronized boolean removeWaiting(Runnable start) {
+        return waiting.remove(start);
+    }
+
+    // Return the permit and start the next waiting write, if any
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    // Start waiting writes while permits are free. Only one thread drains at a time, a drain requested while it runs,
+    // including by a write started from the loop, makes the loop check again.
+    private void drain() {
+        if (draining.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (true) {
+                Runnable next;
+                synchronized (this) {
+                    if (inFlight >= maxInFlight || (next = waiting.poll()) == null) {
+                        break;
+                    }
+                    inFlight++;
+                }
+                next.run();
+            }
+            missed = draining.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
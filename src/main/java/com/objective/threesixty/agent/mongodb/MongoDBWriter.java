@@ -27,14 +27,11 @@ package com.objective.threesixty.agent.mongodb;
  */
 
 import com.google.protobuf.Timestamp;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.gridfs.GridFSBucket;
-import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.model.GridFSUploadOptions;
-import com.mongodb.client.result.InsertOneResult;
+import com.mongodb.client.model.Filters;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import com.mongodb.reactivestreams.client.gridfs.GridFSBuckets;
 import com.objective.threesixty.Document;
 import com.objective.threesixty.MetadataType;
 import com.objective.threesixty.remoteagent.sdk.agent.RepositoryWriter;
@@ -42,18 +39,21 @@ import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
 import org.apache.commons.codec.binary.Hex;
 import org.springframework.context.annotation.Scope;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.io.InputStream;
 import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
 
@@ -61,10 +61,27 @@ import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
 @Scope("singleton")
 public class MongoDBWriter implements RepositoryWriter {
 
-    private MongoClient mongoClient;
-    private MongoCollection<org.bson.Document> mongoCollection;
-    private org.bson.Document insertDoc;
-    private GridFSBucket gridFSBucket;
+    private final MongoDBClientManager clientManager;
+    private final MongoDBBulkInserter bulkInserter;
+    private final MongoDBMetrics metrics;
+    private final int maxInFlight;
+    private final int uploadPrefetch;
+    private final Map<MongoDBCollectionKey, MongoDBWriteLimiter> limiters = new ConcurrentHashMap<>();
+    private final MongoDBContentDeduplicator deduplicator;
+    private final MongoDBUpserter upserter;
+
+    public MongoDBWriter(MongoDBClientManager clientManager, MongoDBBulkInserter bulkInserter, MongoDBMetrics metrics,
+                         MongoDBProperties properties) {
+        this.clientManager = clientManager;
+        this.bulkInserter = bulkInserter;
+        this.metrics = metrics;
+        this.maxInFlight = properties.getWriter().getMaxInFlight();
+        this.uploadPrefetch = properties.getWriter().getUploadPrefetch();
+        // The indexes on the fields dedup and upsert look documents up by are checked on the first write to a collection
+        MongoDBIndexManager indexManager = new MongoDBIndexManager(properties);
+        this.deduplicator = new MongoDBContentDeduplicator(properties, metrics, indexManager);
+        this.upserter = new MongoDBUpserter(indexManager);
+    }
 
     @Override
     public Mono<Document> writeDocument(Document doc, Map<String, MetadataType> metadata, Flux<DataBuffer> binaries, CustomParameters params) {
@@ -75,72 +92,159 @@ public class MongoDBWriter implements RepositoryWriter {
         String uri = params.get(URI).getString();
         String db = params.get(DB).getString();
         String collectionStr = params.get(COLLECTION).getString();
+        boolean typed = METADATA_MAPPING_TYPED.equals(MongoDBParameters.getString(params, METADATA_MAPPING, METADATA_MAPPING_STRING));
+        boolean dedup = MongoDBParameters.getBoolean(params, DEDUPLICATE, false);
+        boolean upsert = WRITE_MODE_UPSERT.equals(MongoDBParameters.getString(params, WRITE_MODE, WRITE_MODE_INSERT));
 
-        // Create MongoClient and MongoDatabase
-        mongoClient = MongoClients.create(uri);
-        MongoDatabase database = mongoClient.getDatabase(db);
+        // Get the limiter bounding the number of writes in flight for the collection
+        MongoDBCollectionKey collectionKey = new MongoDBCollectionKey(uri, db, collectionStr);
+        MongoDBWriteLimiter limiter = limiters.computeIfAbsent(collectionKey, key -> new MongoDBWriteLimiter(maxInFlight));
 
         // Check if using GridFS
+        Mono<Document> write;
         if (!gridFS) {
-            // Create MongoCollection
-            mongoCollection = database.getCollection(collectionStr);
-
-            // GridFS not used, just insert document
-            return Mono.fromCallable(() -> insertDocument(doc, metadata))
-                    .subscribeOn(Schedulers.boundedElastic())
-                    .doOnError(e -> getLogger().error("==> Error processing non-GridFS document: " + doc.getName(), e))
-                    .doFinally(signal ->mongoClient.close());
+            // GridFS not used, just insert document as part of a bulk write. Upserts look up the stored copies first.
+            write = limiter.limit(upsert
+                            ? Mono.using(() -> clientManager.acquireReactive(uri),
+                                    client -> upsertDocument(client.getDatabase(db), collectionKey, doc, metadata, typed),
+                                    client -> clientManager.release(uri))
+                            : Mono.defer(() -> insertDocument(doc, metadata, typed, uri, db, collectionStr)))
+                    .doOnError(e -> getLogger().error("==> Error processing non-GridFS document: " + doc.getName(), e));
         } else {
-            // Create GridFSBucket and MongoCollection
-            gridFSBucket = GridFSBuckets.create(database, collectionStr);
-            mongoCollection = database.getCollection(collectionStr + FILES_SUFFIX);
-
-            // GridFS used, write content
-            return Mono.fromCallable(() -> writeContent(doc, metadata, binaries))
-                    .subscribeOn(Schedulers.boundedElastic())
-                    .doOnError(e -> getLogger().error("==> Error processing GridFS document: " + doc.getName(), e))
-                    .doFinally(signal ->mongoClient.close());
+            // Get the shared Reactive Streams client for the connection string, released once the write completes
+            write = limiter.limit(Mono.using(() -> clientManager.acquireReactive(uri),
+                            // GridFS used, write content
+                            client -> upsert
+                                    ? upsertContent(client.getDatabase(db), collectionKey, dedup, doc, metadata, typed, binaries)
+                                    : writeContent(client.getDatabase(db), collectionKey, dedup, doc, metadata, typed, binaries),
+                            client -> clientManager.release(uri)))
+                    .doOnError(e -> getLogger().error("==> Error processing GridFS document: " + doc.getName(), e));
         }
+
+        // Record the write's latency, including any wait for the limiter, and count the documents written
+        return metrics.record("writeDocument", write)
+                .doOnSuccess(written -> metrics.countDocuments("writeDocument", 1));
     }
 
     // For non-GridFS
-    private Document insertDocument(Document doc, Map<String, MetadataType> metadata) {
+    private Mono<Document> insertDocument(Document doc, Map<String, MetadataType> metadata, boolean typed, String uri, String db,
+                                          String collectionStr) {
         getLogger().debug("==> In insertDocument() ");
 
         //  Create new insert document
-        insertDoc = new org.bson.Document();
+        org.bson.Document insertDoc = createInsertDocument(doc, metadata, typed);
 
-        // Iterate through the metadata map and insert keys/values into document
-        for (Map.Entry<String, MetadataType> entry : metadata.entrySet()) {
-            getLogger().trace("==> key = " + entry.getKey());
-            getLogger().trace("==> key value = " + extractMetadataStringValue(entry.getKey(), entry.getValue()));
-            insertDoc.put(entry.getKey(), extractMetadataStringValue(entry.getKey(), entry.getValue()));
-        }
-        getLogger().debug("==> Metadata added to document");
+        //  Write document, batched with other documents written to the same collection
+        return metrics.record("insertDocument", bulkInserter.insert(uri, db, collectionStr, insertDoc)
+                .doOnSuccess(v -> getLogger().debug("==> Inserted document: " + doc.getName()))
+                .thenReturn(doc));
+    }
 
-        // Add Simflofy-specific metadata to document
-        addSimMeta(insertDoc, doc);
-        getLogger().debug("==> Simflofy metadata added to document");
+    // For non-GridFS upserts, replace the stored copy only when the incoming document is newer
+    private Mono<Document> upsertDocument(MongoDatabase database, MongoDBCollectionKey collectionKey, Document doc,
+                                          Map<String, MetadataType> metadata, boolean typed) {
+        MongoCollection<org.bson.Document> collection = database.getCollection(collectionKey.collection());
+        return upserter.find(collectionKey, collection, false, doc).flatMap(stored -> {
+            if (MongoDBUpserter.isCurrent(stored, false, doc)) {
+                return skipUnchanged(doc);
+            }
+            if (stored.isEmpty()) {
+                return insertDocument(doc, metadata, typed, collectionKey.uri(), collectionKey.db(), collectionKey.collection());
+            }
+
+            // Replace the first stored copy, keeping its _id, and remove any copies left by earlier inserts
+            org.bson.Document insertDoc = createInsertDocument(doc, metadata, typed);
+            insertDoc.put(_ID, stored.get(0).get(_ID));
+            List<Object> duplicates = stored.subList(1, stored.size()).stream().map(copy -> copy.get(_ID)).toList();
+            Mono<Void> removeDuplicates = duplicates.isEmpty() ? Mono.empty()
+                    : Mono.from(collection.deleteMany(Filters.in(_ID, duplicates))).then();
+            return metrics.record("replaceDocument", bulkInserter.replace(collectionKey.uri(), collectionKey.db(), collectionKey.collection(), insertDoc)
+                    .then(removeDuplicates)
+                    .doOnSuccess(v -> getLogger().debug("==> Replaced document: " + doc.getName()))
+                    .thenReturn(doc));
+        });
+    }
 
-        //  Write document
-        InsertOneResult result = mongoCollection.insertOne(insertDoc);
-        getLogger().debug("==> Status: " + result + ", Inserted document: " + doc.getName());
+    // For GridFS upserts, upload the new content only when the incoming document is newer, then remove the stored copies.
+    // The new file is written before the old ones are removed, so the document is never missing.
+    private Mono<Document> upsertContent(MongoDatabase database, MongoDBCollectionKey bucketKey, boolean dedup, Document doc,
+                                         Map<String, MetadataType> metadata, boolean typed, Flux<DataBuffer> binaries) {
+        return upserter.find(bucketKey, database.getCollection(bucketKey.collection() + FILES_SUFFIX), true, doc).flatMap(stored -> {
+            if (MongoDBUpserter.isCurrent(stored, true, doc)) {
+                return skipUnchanged(doc);
+            }
+            return writeContent(database, bucketKey, dedup, doc, metadata, typed, binaries)
+                    .flatMap(written -> stored.isEmpty() ? Mono.just(written)
+                            : MongoDBContentDeduplicator.deleteFiles(database, bucketKey.collection(), stored).thenReturn(written));
+        });
+    }
 
-        return doc;
+    // A stored copy is as recent as the incoming document, its binaries are never read
+    private Mono<Document> skipUnchanged(Document doc) {
+        getLogger().debug("==> Skipped unchanged document: " + doc.getName());
+        metrics.countDocuments("skipUnchanged", 1);
+        return Mono.just(doc);
     }
 
-    // For GridFS
-    private Document writeContent(Document doc, Map<String, MetadataType> metadata, Flux<DataBuffer> binaries) {
-        getLogger().debug("==> In writeContent() ");
+    // For GridFS, dedup only uploads content not already stored in the bucket
+    private Mono<Document> writeContent(MongoDatabase database, MongoDBCollectionKey bucketKey, boolean dedup, Document doc,
+                                        Map<String, MetadataType> metadata, boolean typed, Flux<DataBuffer> binaries) {
+        return metrics.record("writeContent", Mono.defer(() -> {
+            getLogger().debug("==> In writeContent() ");
 
-        //  Create new insert document
-        insertDoc = new org.bson.Document();
+            //  Create new insert document
+            org.bson.Document insertDoc = createInsertDocument(doc, metadata, typed);
+
+            // Set the metadata of the uploaded file
+            GridFSUploadOptions options = new GridFSUploadOptions();
+            options.metadata(insertDoc);
+
+            // Upload each buffer as it arrives, so the binary is never held in memory and no thread waits on the upload.
+            // The driver removes the chunks written so far if the upload fails or is cancelled.
+            Flux<ByteBuffer> source = toUploadSource(binaries);
+            Mono<Void> upload = dedup
+                    ? deduplicator.upload(bucketKey, database, doc.getName(), doc.getSize(), insertDoc, source)
+                    : Mono.from(GridFSBuckets.create(database, bucketKey.collection()).uploadFromPublisher(doc.getName(), source, options)).then();
+            return upload
+                    .doOnSuccess(v -> getLogger().debug("==> Inserted document: " + doc.getName()))
+                    .thenReturn(doc);
+        }));
+    }
+
+    // Get the buffers to upload, prefetching a few incoming buffers and releasing each once copied
+    Flux<ByteBuffer> toUploadSource(Flux<DataBuffer> binaries) {
+        return binaries
+                .limitRate(uploadPrefetch)
+                .map(this::toByteBuffer)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    // Copy buffer for the upload and release it
+    private ByteBuffer toByteBuffer(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            metrics.countBytesIn(bytes.length);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    // Create the document holding the metadata to be written, typed stores native BSON types instead of strings
+    private org.bson.Document createInsertDocument(Document doc, Map<String, MetadataType> metadata, boolean typed) {
+        org.bson.Document insertDoc = new org.bson.Document();
 
         // Iterate through the metadata map and insert keys/values into document
         for (Map.Entry<String, MetadataType> entry : metadata.entrySet()) {
+            Object value = typed ? MongoDBMetadataMapper.toBson(entry.getValue())
+                    : extractMetadataStringValue(entry.getKey(), entry.getValue());
+            if (typed && value == null) {
+                getLogger().warn("Incompatible type. No value found for metadata key " + entry.getKey());
+            }
             getLogger().trace("==> key = " + entry.getKey());
-            getLogger().trace("==> key value = " + extractMetadataStringValue(entry.getKey(), entry.getValue()));
-            insertDoc.put(entry.getKey(), extractMetadataStringValue(entry.getKey(), entry.getValue()));
+            getLogger().trace("==> key value = " + value);
+            insertDoc.put(entry.getKey(), value);
         }
         getLogger().debug("==> Metadata added to document");
 
@@ -148,17 +252,11 @@ public class MongoDBWriter implements RepositoryWriter {
         addSimMeta(insertDoc, doc);
         getLogger().debug("==> Simflofy metadata added to document");
 
-        // Write document
-        GridFSUploadOptions options = new GridFSUploadOptions();
-        options.metadata(insertDoc);
-        gridFSBucket.uploadFromStream(doc.getName(), convert(binaries), options);
-        getLogger().debug("==> Inserted document: " + doc.getName());
-
-        return doc;
+        return insertDoc;
     }
 
     // Add Simflofy-specific metadata to document
-    private void addSimMeta(org.bson.Document meta, Document doc) {
+    void addSimMeta(org.bson.Document meta, Document doc) {
         meta.put(SIMFLOFY_CREATED_BY, SIMFLOFY);
         meta.put(SIMFLOFY_CREATED, new Date());
         meta.put(SIMFLOFY_PATH_FIELD, doc.getParentPath());
@@ -207,7 +305,9 @@ public class MongoDBWriter implements RepositoryWriter {
         return DateTimeFormatter.ISO_INSTANT.withZone(ZoneOffset.UTC).format(instant);
     }
 
-    // Converts Flux<DataBuffer> to InputStream
+    // Converts Flux<DataBuffer> to InputStream, holding the whole binary in memory.
+    // No longer used by writeContent(), which streams GridFS uploads through toUploadSource() instead.
+    @Deprecated
     public InputStream convert(Flux<DataBuffer> dataBufferFlux) {
         return dataBufferFlux.map(DataBuffer::asInputStream)
                 .reduce(SequenceInputStream::new)
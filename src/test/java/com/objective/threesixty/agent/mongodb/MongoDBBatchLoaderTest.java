@@ -0,0 +1,167 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoDBBatchLoaderTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    @Test
+    void singleCallerIsLoadedStraightAway() {
+        MongoDBBatchLoader<String, String> loader = new MongoDBBatchLoader<>(this::load, 10);
+
+        assertThat(loader.get("a")).isEqualTo("A");
+        assertThat(batches).containsExactly(List.of("a"));
+    }
+
+    @Test
+    void callersWaitingForARunningBatchShareTheNextOne() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MongoDBBatchLoader<String, String> loader = new MongoDBBatchLoader<>(keys -> {
+            if (keys.contains("a")) {
+                loading.countDown();
+                await(release);
+            }
+            return load(keys);
+        }, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> loader.get("a"), executor);
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<String>> waiting = List.of("b", "c", "d").stream()
+                    .map(key -> CompletableFuture.supplyAsync(() -> loader.get(key), executor))
+                    .toList();
+            awaitWaiting(loader, 3);
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("A");
+            for (CompletableFuture<String> future : waiting) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isNotNull();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(1)).containsExactlyInAnyOrder("b", "c", "d");
+    }
+
+    @Test
+    void batchesAreLimitedToTheMaximumSize() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MongoDBBatchLoader<String, String> loader = new MongoDBBatchLoader<>(keys -> {
+            if (keys.contains("a")) {
+                loading.countDown();
+                await(release);
+            }
+            return load(keys);
+        }, 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> loader.get("a"), executor);
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<String>> waiting = List.of("b", "c", "d").stream()
+                    .map(key -> CompletableFuture.supplyAsync(() -> loader.get(key), executor))
+                    .toList();
+            awaitWaiting(loader, 3);
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<String> future : waiting) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(batches).hasSize(3);
+        assertThat(batches.subList(1, 3)).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+    }
+
+    @Test
+    void missingKeysAreNull() {
+        MongoDBBatchLoader<String, String> loader = new MongoDBBatchLoader<>(keys -> Map.of(), 10);
+
+        assertThat(loader.get("a")).isNull();
+    }
+
+    @Test
+    void failedBatchOnlyFailsItsCallers() {
+        MongoDBBatchLoader<String, String> loader = new MongoDBBatchLoader<>(keys -> {
+            if (keys.contains("bad")) {
+                throw new IllegalArgumentException("bad key");
+            }
+            return load(keys);
+        }, 10);
+
+        assertThatThrownBy(() -> loader.get("bad")).isInstanceOf(IllegalArgumentException.class).hasMessage("bad key");
+        // The failure does not leave the loader busy
+        assertThat(loader.get("b")).isEqualTo("B");
+    }
+
+    private synchronized Map<String, String> load(Collection<String> keys) {
+        batches.add(List.copyOf(keys));
+        Map<String, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, key.toUpperCase()));
+        return values;
+    }
+
+    // Wait until the callers have queued their keys behind the running batch
+    private static void awaitWaiting(MongoDBBatchLoader<String, String> loader, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loader.getWaiting() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(loader.getWaiting()).isEqualTo(count);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
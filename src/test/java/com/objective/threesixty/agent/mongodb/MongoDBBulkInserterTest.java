@@ -0,0 +1,179 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoDBBulkInserterTest {
+
+    private static final String COLLECTION = "documents";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path checkpoints;
+
+    private MongoDBTestServer server;
+    private MongoDBProperties.Bulk settings;
+    private String uri;
+
+    @BeforeEach
+    void start() {
+        server = new MongoDBTestServer(checkpoints);
+        settings = server.properties.getWriter().getBulk();
+        // Only the trigger under test writes a batch
+        settings.setMaxCount(1000);
+        settings.setMaxSize(DataSize.ofMegabytes(16));
+        settings.setWindow(Duration.ofHours(1));
+        uri = server.parameters(COLLECTION, false).get(MongoDBConstants.URI).getString();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void duplicateIdOnlyFailsItsOwnEntry() {
+        settings.setMaxCount(3);
+        MongoDBBulkInserter inserter = new MongoDBBulkInserter(server.clientManager, server.properties);
+        List<Mono<String>> results = List.of(
+                insert(inserter, new Document("_id", 1).append("name", "first")),
+                insert(inserter, new Document("_id", 1).append("name", "duplicate")),
+                insert(inserter, new Document("_id", 2).append("name", "second")));
+
+        // Written as one batch, each entry completes from its own result
+        assertThat(Flux.merge(results).collectList().block(TIMEOUT)).containsExactlyInAnyOrder("ok", "ok", "failed");
+        assertThat(server.database().getCollection(COLLECTION).countDocuments()).isEqualTo(2);
+        assertThat(inserts()).isEqualTo(1);
+    }
+
+    @Test
+    void writeErrorsFailOnlyTheirEntries() {
+        BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        MongoBulkWriteException e = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate),
+                null, new ServerAddress(), Set.of());
+
+        List<Throwable> errors = MongoDBBulkInserter.getEntryErrors(e, 3);
+        assertThat(errors.get(0)).isNull();
+        assertThat(errors.get(1)).isInstanceOf(MongoWriteException.class);
+        assertThat(((MongoWriteException) errors.get(1)).getCode()).isEqualTo(11000);
+        assertThat(errors.get(2)).isNull();
+    }
+
+    @Test
+    void writeConcernErrorFailsEveryEntry() {
+        BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0);
+        WriteConcernError writeConcern = new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out",
+                new BsonDocument());
+        MongoBulkWriteException e = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate),
+                writeConcern, new ServerAddress(), Set.of());
+
+        List<Throwable> errors = MongoDBBulkInserter.getEntryErrors(e, 3);
+        assertThat(errors.get(0)).isInstanceOf(MongoWriteException.class);
+        assertThat(errors.subList(1, 3)).containsOnly(e);
+    }
+
+    @Test
+    void otherErrorsFailEveryEntry() {
+        IllegalStateException e = new IllegalStateException("connection closed");
+        assertThat(MongoDBBulkInserter.getEntryErrors(e, 2)).containsExactly(e, e);
+    }
+
+    @Test
+    void countTriggersTheWrite() {
+        settings.setMaxCount(2);
+        MongoDBBulkInserter inserter = new MongoDBBulkInserter(server.clientManager, server.properties);
+        Flux.merge(insert(inserter, new Document("n", 1)), insert(inserter, new Document("n", 2))).blockLast(TIMEOUT);
+
+        assertThat(inserts()).isEqualTo(1);
+        assertThat(server.database().getCollection(COLLECTION).countDocuments()).isEqualTo(2);
+    }
+
+    @Test
+    void sizeTriggersTheWrite() {
+        settings.setMaxSize(DataSize.ofKilobytes(1));
+        MongoDBBulkInserter inserter = new MongoDBBulkInserter(server.clientManager, server.properties);
+        insert(inserter, new Document("text", "x".repeat(2048))).block(TIMEOUT);
+
+        assertThat(inserts()).isEqualTo(1);
+    }
+
+    @Test
+    void windowTriggersTheWrite() {
+        settings.setWindow(Duration.ofMillis(200));
+        MongoDBBulkInserter inserter = new MongoDBBulkInserter(server.clientManager, server.properties);
+        long start = System.nanoTime();
+        Flux.merge(insert(inserter, new Document("n", 1)), insert(inserter, new Document("n", 2))).blockLast(TIMEOUT);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+        assertThat(inserts()).isEqualTo(1);
+    }
+
+    @Test
+    void incompleteBatchWaitsForTheWindow() {
+        MongoDBBulkInserter inserter = new MongoDBBulkInserter(server.clientManager, server.properties);
+        assertThatThrownBy(() -> insert(inserter, new Document("n", 1)).block(Duration.ofMillis(300)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Timeout");
+        assertThat(inserts()).isZero();
+    }
+
+    private Mono<String> insert(MongoDBBulkInserter inserter, Document doc) {
+        return inserter.insert(uri, MongoDBTestServer.DB_NAME, COLLECTION, doc)
+                .thenReturn("ok")
+                .onErrorResume(MongoWriteException.class, e -> Mono.just("failed"));
+    }
+
+    // Number of insert commands sent, one per batch
+    private long inserts() {
+        return server.registry.find("mongodb.driver.commands").tag("command", "insert").timers().stream()
+                .mapToLong(Timer::count).sum();
+    }
+}
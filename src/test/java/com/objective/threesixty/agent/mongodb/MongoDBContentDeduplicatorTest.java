@@ -0,0 +1,182 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBContentDeduplicatorTest {
+
+    private static final String BUCKET = "files";
+    // Three chunks of the default 255KB chunk size
+    private static final int CONTENT_SIZE = 600 * 1024;
+
+    @TempDir
+    Path checkpoints;
+
+    private MongoDBTestServer server;
+    private MongoDBContentDeduplicator deduplicator;
+    private MongoCollection<Document> files;
+    private MongoCollection<Document> chunks;
+    private final byte[] content = new byte[CONTENT_SIZE];
+
+    @BeforeEach
+    void start() {
+        server = new MongoDBTestServer(checkpoints);
+        server.properties.getWriter().getDedup().setBufferSize(DataSize.ofKilobytes(100));
+        deduplicator = new MongoDBContentDeduplicator(server.properties, server.metrics, new MongoDBIndexManager(server.properties));
+        files = server.database().getCollection(BUCKET + FILES_SUFFIX);
+        chunks = server.database().getCollection(BUCKET + CHUNKS_SUFFIX);
+        new Random(1).nextBytes(content);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void sameContentSharesOneSetOfChunks() {
+        // Within the buffer size the content is hashed before upload
+        byte[] small = new byte[50 * 1024];
+        upload("a.bin", small.length, small);
+        upload("b.bin", small.length, small);
+        assertThat(files.countDocuments()).isEqualTo(2);
+        assertThat(chunks.countDocuments()).isEqualTo(1);
+        assertThat(contentIds()).hasSize(1);
+
+        // Past the buffer size the chunks of the duplicate are removed once it has been hashed
+        upload("c.bin", CONTENT_SIZE, content);
+        upload("d.bin", CONTENT_SIZE, content);
+        assertThat(files.countDocuments()).isEqualTo(4);
+        assertThat(chunks.countDocuments()).isEqualTo(4);
+        assertThat(contentIds()).hasSize(2);
+    }
+
+    @Test
+    void chunksAreKeptUntilTheLastReferenceIsDeleted() {
+        upload("a.bin", CONTENT_SIZE, content);
+        upload("b.bin", CONTENT_SIZE, content);
+        List<Document> stored = storedFiles();
+
+        MongoDBContentDeduplicator.deleteFiles(server.reactiveDatabase(), BUCKET, stored.subList(0, 1)).block();
+        assertThat(files.countDocuments()).isEqualTo(1);
+        assertThat(chunks.countDocuments()).isEqualTo(3);
+
+        MongoDBContentDeduplicator.deleteFiles(server.reactiveDatabase(), BUCKET, stored.subList(1, 2)).block();
+        assertThat(files.countDocuments()).isZero();
+        assertThat(chunks.countDocuments()).isZero();
+    }
+
+    @Test
+    void readerDeletesKeepChunksUntilTheLastReferenceIsDeleted() {
+        upload("a.bin", CONTENT_SIZE, content);
+        upload("b.bin", CONTENT_SIZE, content);
+        upload("c.bin", CONTENT_SIZE, content);
+        List<String> docIds = storedFiles().stream().map(file -> file.getObjectId(_ID).toHexString()).toList();
+
+        MongoDBReader reader = server.reader();
+        CustomParameters parameters = new CustomParameters(server.parameters(BUCKET, true));
+        reader.init(parameters);
+
+        // The file holding the chunks goes first, the others still reference them
+        assertThat(reader.deleteDocuments(docIds.subList(0, 1), parameters)).containsEntry(docIds.get(0), true);
+        assertThat(chunks.countDocuments()).isEqualTo(3);
+
+        assertThat(reader.deleteDocuments(docIds.subList(1, 3), parameters)).containsValues(true, true);
+        assertThat(files.countDocuments()).isZero();
+        assertThat(chunks.countDocuments()).isZero();
+    }
+
+    @Test
+    void staleCachedContentIsUploadedAgain() {
+        byte[] small = new byte[50 * 1024];
+        upload("a.bin", small.length, small);
+
+        // Remove the content behind the deduplicator's back, its cache still holds the hash
+        files.deleteMany(new Document());
+        chunks.deleteMany(new Document());
+
+        upload("b.bin", small.length, small);
+        Document file = files.find().first();
+        assertThat(files.countDocuments()).isEqualTo(1);
+        assertThat(file.get(METADATA, Document.class).getObjectId(CONTENT_ID)).isEqualTo(file.getObjectId(_ID));
+        assertThat(chunks.countDocuments(Filters.eq(FILES_ID, file.getObjectId(_ID)))).isEqualTo(1);
+    }
+
+    @Test
+    void binaryLargerThanDeclaredIsStreamed() {
+        upload("a.bin", 10, content);
+        Document file = files.find().first();
+        assertThat(file.get(GRIDFS_LENGTH, Number.class).longValue()).isEqualTo(CONTENT_SIZE);
+        assertThat(chunks.countDocuments()).isEqualTo(3);
+        assertThat(file.get(METADATA, Document.class).getString(CONTENT_SHA256)).isNotNull();
+
+        // The hash recorded on the streaming path finds the content for later duplicates
+        upload("b.bin", CONTENT_SIZE, content);
+        assertThat(files.countDocuments()).isEqualTo(2);
+        assertThat(chunks.countDocuments()).isEqualTo(3);
+        assertThat(contentIds()).hasSize(1);
+    }
+
+    private void upload(String filename, long declaredSize, byte[] bytes) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += 64 * 1024) {
+            buffers.add(ByteBuffer.wrap(bytes, offset, Math.min(64 * 1024, bytes.length - offset)));
+        }
+        deduplicator.upload(server.collectionKey(BUCKET), server.reactiveDatabase(), filename, declaredSize,
+                new Document(), Flux.fromIterable(buffers)).block();
+    }
+
+    private List<Document> storedFiles() {
+        return files.find().projection(Projections.include(_ID, METADATA_DOT + CONTENT_ID))
+                .sort(new Document(_ID, 1)).into(new ArrayList<>());
+    }
+
+    private List<ObjectId> contentIds() {
+        return files.distinct(METADATA_DOT + CONTENT_ID, ObjectId.class).into(new ArrayList<>());
+    }
+}
@@ -0,0 +1,113 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.bson.BsonBinarySubType;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBDocIdsTest {
+
+    private static final ObjectId OBJECT_ID = new ObjectId("5f1d7a3b2c4e6f0012345678");
+
+    @Test
+    void typedValuesRoundTrip() {
+        UUID uuid = UUID.fromString("3b241101-e2bb-4255-8caf-4136c566a962");
+        Binary uuidBinary = new Binary(BsonBinarySubType.UUID_STANDARD,
+                ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array());
+        List<Object> values = List.of(42L, 42, 4.5, new Decimal128(new BigDecimal("12.50")), new Date(1_600_000_000_000L), true,
+                uuidBinary, new Document("tenant", "a").append("seq", 7L), List.of(1, "two"),
+                new Binary(BsonBinarySubType.BINARY, new byte[] {1, 2, 3}));
+
+        for (boolean objectIdPlain : new boolean[] {true, false}) {
+            for (Object value : values) {
+                String docId = MongoDBDocIds.encode(value, objectIdPlain);
+                assertThat(docId).startsWith(MongoDBDocIds.type(value) + ":");
+                assertThat(MongoDBDocIds.decode(docId, objectIdPlain)).as(docId).isEqualTo(value);
+            }
+        }
+    }
+
+    @Test
+    void uuidsAreReadBackAsStandardBinaries() {
+        UUID uuid = UUID.randomUUID();
+        String docId = MongoDBDocIds.encode(uuid, true);
+
+        assertThat(docId).isEqualTo("uuid:" + uuid);
+        Binary binary = (Binary) MongoDBDocIds.decode(docId, true);
+        assertThat(binary.getType()).isEqualTo(BsonBinarySubType.UUID_STANDARD.getValue());
+        assertThat(MongoDBDocIds.encode(binary, true)).isEqualTo(docId);
+    }
+
+    @Test
+    void objectIdsArePlainOnlyForTheIdField() {
+        assertThat(MongoDBDocIds.encode(OBJECT_ID, true)).isEqualTo(OBJECT_ID.toHexString());
+        assertThat(MongoDBDocIds.decode(OBJECT_ID.toHexString(), true)).isEqualTo(OBJECT_ID);
+
+        String docId = MongoDBDocIds.encode(OBJECT_ID, false);
+        assertThat(docId).isEqualTo("objectId:" + OBJECT_ID.toHexString());
+        assertThat(MongoDBDocIds.decode(docId, false)).isEqualTo(OBJECT_ID);
+    }
+
+    @Test
+    void plainStringsAreUnchanged() {
+        for (String value : List.of("report.pdf", "a:b", "", OBJECT_ID.toHexString())) {
+            assertThat(MongoDBDocIds.encode(value, false)).isEqualTo(value);
+            assertThat(MongoDBDocIds.decode(value, false)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void stringsThatReadAsAnotherTypeAreEscaped() {
+        // A string holding ObjectId hex would decode to an ObjectId when the ID Field is _id
+        String hex = OBJECT_ID.toHexString();
+        assertThat(MongoDBDocIds.encode(hex, true)).isEqualTo("string:" + hex);
+        assertThat(MongoDBDocIds.decode("string:" + hex, true)).isEqualTo(hex);
+
+        for (String value : List.of("long:42", "string:x", "object:{}")) {
+            String docId = MongoDBDocIds.encode(value, false);
+            assertThat(docId).isEqualTo("string:" + value);
+            assertThat(MongoDBDocIds.decode(docId, false)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void nullHasNoDocId() {
+        assertThat(MongoDBDocIds.encode(null, true)).isNull();
+    }
+}
@@ -0,0 +1,128 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.SIMFLOFY_FILENAME_FIELD;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants._ID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBDocumentCacheTest {
+
+    private static final MongoDBCollectionKey COLLECTION = new MongoDBCollectionKey("mongodb://localhost", "test", "documents");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MongoDBMetrics metrics = new MongoDBMetrics(registry);
+
+    @TempDir
+    Path checkpoints;
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        MongoDBDocumentCache cache = new MongoDBDocumentCache(2, Duration.ofMinutes(1), metrics);
+        cache.put(key("a"), new Document("n", "a"));
+        cache.put(key("b"), new Document("n", "b"));
+
+        // Reading a makes b the least recently used
+        assertThat(cache.get(key("a"))).isNotNull();
+        cache.put(key("c"), new Document("n", "c"));
+
+        assertThat(cache.get(key("b"))).isNull();
+        assertThat(cache.get(key("a"))).isNotNull();
+        assertThat(cache.get(key("c"))).isNotNull();
+        assertThat(count("eviction")).isEqualTo(1);
+        assertThat(count("hit")).isEqualTo(3);
+        assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        MongoDBDocumentCache cache = new MongoDBDocumentCache(10, Duration.ofMillis(50), metrics);
+        cache.put(key("a"), new Document("n", "a"));
+        assertThat(cache.get(key("a"))).isNotNull();
+
+        Thread.sleep(100);
+        assertThat(cache.get(key("a"))).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(count("eviction")).isEqualTo(1);
+    }
+
+    @Test
+    void loaderRunsOnlyOnAMissAndNotFoundIsNotCached() {
+        MongoDBDocumentCache cache = new MongoDBDocumentCache(10, Duration.ofMinutes(1), metrics);
+        assertThat(cache.get(key("a"), () -> new Document("n", "a"))).isNotNull();
+        assertThat(cache.get(key("a"), () -> null)).isNotNull();
+
+        assertThat(cache.get(key("b"), () -> null)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        MongoDBDocumentCache cache = new MongoDBDocumentCache(0, Duration.ofMinutes(1), metrics);
+        cache.put(key("a"), new Document("n", "a"));
+
+        assertThat(cache.get(key("a"))).isNull();
+    }
+
+    @Test
+    void deletedDocumentsAreInvalidated() {
+        try (MongoDBTestServer server = new MongoDBTestServer(checkpoints)) {
+            ObjectId id = new ObjectId();
+            server.database().getCollection("documents").insertOne(new Document(_ID, id).append(SIMFLOFY_FILENAME_FIELD, "a.txt"));
+            MongoDBReader reader = server.reader();
+            CustomParameters parameters = new CustomParameters(server.parameters("documents", false));
+            reader.init(parameters);
+            String docId = id.toHexString();
+
+            assertThat(reader.getDocument(docId, parameters)).isNotNull();
+            assertThat(reader.getDocument(docId, parameters)).isNotNull();
+            assertThat(server.registry.counter(MongoDBMetrics.CACHE_COUNTER, "result", "hit").count()).isEqualTo(1);
+
+            assertThat(reader.deleteDocuments(List.of(docId), parameters)).containsEntry(docId, true);
+            assertThat(reader.getDocument(docId, parameters)).isNull();
+        }
+    }
+
+    private static MongoDBDocumentCache.Key key(String docId) {
+        return new MongoDBDocumentCache.Key(COLLECTION, _ID, docId);
+    }
+
+    private double count(String result) {
+        return registry.counter(MongoDBMetrics.CACHE_COUNTER, "result", result).count();
+    }
+}
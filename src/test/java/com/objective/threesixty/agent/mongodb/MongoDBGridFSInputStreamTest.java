@@ -0,0 +1,176 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.objective.threesixty.remoteagent.sdk.BinaryDetails;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoDBGridFSInputStreamTest {
+
+    private static final String BUCKET = "files";
+    // Three full chunks and a last chunk of 5 bytes
+    private static final int CHUNK_SIZE = 10;
+    private static final int LENGTH = 35;
+
+    @TempDir
+    Path checkpoints;
+
+    private MongoDBTestServer server;
+    private ExecutorService executor;
+    private MongoCollection<Document> chunks;
+    private GridFSFile file;
+    private final byte[] content = new byte[LENGTH];
+
+    @BeforeEach
+    void start() {
+        server = new MongoDBTestServer(checkpoints);
+        executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < LENGTH; i++) {
+            content[i] = (byte) i;
+        }
+        GridFSBucket bucket = GridFSBuckets.create(server.database(), BUCKET).withChunkSizeBytes(CHUNK_SIZE);
+        ObjectId id = bucket.uploadFromStream("a.bin", new ByteArrayInputStream(content),
+                new GridFSUploadOptions().metadata(new Document(SIMFLOFY_CONTENT_TYPE_FIELD, "application/test")));
+        file = bucket.find(Filters.eq(_ID, id)).first();
+        chunks = server.database().getCollection(BUCKET + CHUNKS_SUFFIX);
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void readsTheWholeFile(int prefetch) throws IOException {
+        assertThat(read(0, -1, prefetch)).isEqualTo(content);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void rangeStartingMidChunk(int prefetch) throws IOException {
+        assertThat(read(13, 10, prefetch)).isEqualTo(Arrays.copyOfRange(content, 13, 23));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void rangeEndingOnAChunkBoundaryDoesNotReadTheNextChunk(int prefetch) throws IOException {
+        // Chunk 2 starts at byte 20, the range never needs it
+        chunks.deleteOne(Filters.and(Filters.eq(FILES_ID, file.getObjectId()), Filters.eq(CHUNK_N, 2)));
+
+        assertThat(read(5, 15, prefetch)).isEqualTo(Arrays.copyOfRange(content, 5, 20));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void negativeLengthReadsToTheEnd(int prefetch) throws IOException {
+        assertThat(read(22, -1, prefetch)).isEqualTo(Arrays.copyOfRange(content, 22, LENGTH));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void rangesAreClampedToTheFile(int prefetch) throws IOException {
+        assertThat(read(30, 100, prefetch)).isEqualTo(Arrays.copyOfRange(content, 30, LENGTH));
+        assertThat(read(LENGTH + 5, 10, prefetch)).isEmpty();
+        assertThat(read(-5, 3, prefetch)).isEqualTo(Arrays.copyOfRange(content, 0, 3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    void missingChunkFailsTheRead(int prefetch) {
+        chunks.deleteOne(Filters.and(Filters.eq(FILES_ID, file.getObjectId()), Filters.eq(CHUNK_N, 1)));
+
+        assertThatThrownBy(() -> read(0, -1, prefetch)).isInstanceOf(IOException.class).hasMessageContaining("Missing chunk 1");
+    }
+
+    @Test
+    void readerReadsTheBinaryWithoutQueryingTheFilesEntryAgain() throws IOException {
+        MongoDBReader reader = server.reader();
+        CustomParameters parameters = new CustomParameters(server.parameters(BUCKET, true));
+        reader.init(parameters);
+        String docId = file.getObjectId().toHexString();
+
+        assertThat(reader.getDocument(docId, parameters)).isNotNull();
+        long finds = filesFinds();
+        assertThat(finds).isPositive();
+        BinaryDetails binary = reader.getDocumentBinary(docId, parameters);
+        try (InputStream in = binary.getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(binary.getMimeType()).isEqualTo("application/test");
+        assertThat(filesFinds()).isEqualTo(finds);
+    }
+
+    private byte[] read(long offset, long length, int prefetch) throws IOException {
+        try (InputStream in = new MongoDBGridFSInputStream(chunks, file, offset, length, prefetch, executor)) {
+            // Read in steps smaller than a chunk, so reads cross chunk boundaries
+            byte[] result = new byte[0];
+            byte[] step = new byte[3];
+            int read;
+            while ((read = in.read(step)) != -1) {
+                int size = result.length;
+                result = Arrays.copyOf(result, size + read);
+                System.arraycopy(step, 0, result, size, read);
+            }
+            return result;
+        }
+    }
+
+    // Number of queries sent to the files collection
+    private long filesFinds() {
+        return server.registry.find("mongodb.driver.commands").tag("command", "find").tag("collection", BUCKET + FILES_SUFFIX)
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+}
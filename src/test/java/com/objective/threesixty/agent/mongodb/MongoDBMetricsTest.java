@@ -0,0 +1,77 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoDBMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MongoDBMetrics metrics = new MongoDBMetrics(registry);
+
+    @Test
+    void reactiveOperationsAreTimedByOutcome() {
+        metrics.record("write", Mono.just(1)).block();
+        assertThatThrownBy(() -> metrics.record("write", Mono.error(new IllegalStateException())).block())
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(timed("write", "success")).isEqualTo(1);
+        assertThat(timed("write", "error")).isEqualTo(1);
+        assertThat(registry.counter(MongoDBMetrics.ERRORS_COUNTER, "operation", "write", "exception", "IllegalStateException")
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledOperationsAreTimed() {
+        Disposable write = metrics.record("write", Mono.never()).subscribe();
+        assertThat(timed("write", "cancelled")).isZero();
+
+        write.dispose();
+        assertThat(timed("write", "cancelled")).isEqualTo(1);
+        assertThat(timed("write", "success")).isZero();
+        assertThat(registry.find(MongoDBMetrics.ERRORS_COUNTER).counters()).isEmpty();
+    }
+
+    @Test
+    void emptyOperationsAreSuccessful() {
+        metrics.record("write", Mono.empty()).block();
+
+        assertThat(timed("write", "success")).isEqualTo(1);
+    }
+
+    private long timed(String operation, String outcome) {
+        Timer timer = registry.find(MongoDBMetrics.OPERATION_TIMER).tags("operation", operation, "outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.Value;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import com.objective.threesixty.remoteagent.sdk.utils.ValueUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.BATCH_SIZE;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.DEFAULT_BATCH_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoDBParametersTest {
+
+    @Test
+    void positiveIntFallsBackToDefaultBelowOne() {
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.intValue(0)), BATCH_SIZE, 1000)).isEqualTo(1000);
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.longValue(-5)), BATCH_SIZE, 1000)).isEqualTo(1000);
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.stringValue("0")), BATCH_SIZE, 1000)).isEqualTo(1000);
+    }
+
+    @Test
+    void positiveIntReadsNumberFields() {
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.intValue(1)), BATCH_SIZE, 1000)).isEqualTo(1);
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.longValue(250)), BATCH_SIZE, 1000)).isEqualTo(250);
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.stringValue(" 42 ")), BATCH_SIZE, 1000)).isEqualTo(42);
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.stringValue("")), BATCH_SIZE, 1000)).isEqualTo(1000);
+        assertThat(MongoDBParameters.getPositiveInt(new CustomParameters(Map.of()), BATCH_SIZE, 1000)).isEqualTo(1000);
+    }
+
+    @Test
+    void positiveIntCapsAtIntRange() {
+        assertThat(MongoDBParameters.getPositiveInt(parameters(ValueUtils.longValue(Long.MAX_VALUE)), BATCH_SIZE, 1000))
+                .isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void positiveIntRejectsText() {
+        assertThatThrownBy(() -> MongoDBParameters.getPositiveInt(parameters(ValueUtils.stringValue("many")), BATCH_SIZE, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void findOptionsBatchSizeIsAtLeastOne() {
+        assertThat(MongoDBFindOptions.from(parameters(ValueUtils.intValue(0))).batchSize()).isEqualTo(DEFAULT_BATCH_SIZE);
+        assertThat(MongoDBFindOptions.from(parameters(ValueUtils.intValue(-1))).batchSize()).isEqualTo(DEFAULT_BATCH_SIZE);
+    }
+
+    private static CustomParameters parameters(Value batchSize) {
+        return new CustomParameters(Map.of(BATCH_SIZE, batchSize));
+    }
+}
@@ -0,0 +1,100 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.Value;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import com.objective.threesixty.remoteagent.sdk.utils.ValueUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.QUERY;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.SYNC_MODE_CHANGE_STREAM;
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.SYNC_MODE_KEYSET;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBReaderCheckpointTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    Path checkpoints;
+
+    private MongoDBTestServer server;
+    private MongoDBReader reader;
+    private Map<String, Value> parameters;
+
+    @BeforeEach
+    void start() {
+        server = new MongoDBTestServer(checkpoints);
+        reader = server.reader();
+        parameters = server.parameters("documents", false);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void changeStreamKeyIgnoresTheDateRange() {
+        reader.init(MongoDBTestServer.withDateRange(parameters, 10 * DAY, 11 * DAY));
+        String first = reader.getCheckpointKey(SYNC_MODE_CHANGE_STREAM);
+
+        // The next run of a job with a rolling range
+        reader.init(MongoDBTestServer.withDateRange(parameters, 11 * DAY, 12 * DAY));
+        assertThat(reader.getCheckpointKey(SYNC_MODE_CHANGE_STREAM)).isEqualTo(first);
+
+        reader.init(new CustomParameters(parameters));
+        assertThat(reader.getCheckpointKey(SYNC_MODE_CHANGE_STREAM)).isEqualTo(first);
+    }
+
+    @Test
+    void changeStreamKeyFollowsTheQuery() {
+        reader.init(new CustomParameters(parameters));
+        String all = reader.getCheckpointKey(SYNC_MODE_CHANGE_STREAM);
+
+        parameters.put(QUERY, ValueUtils.stringValue("{\"status\": \"active\"}"));
+        reader.init(new CustomParameters(parameters));
+        assertThat(reader.getCheckpointKey(SYNC_MODE_CHANGE_STREAM)).isNotEqualTo(all);
+    }
+
+    @Test
+    void keysetKeyFollowsTheDateRange() {
+        reader.init(MongoDBTestServer.withDateRange(parameters, 10 * DAY, 11 * DAY));
+        String first = reader.getCheckpointKey(SYNC_MODE_KEYSET);
+
+        reader.init(MongoDBTestServer.withDateRange(parameters, 11 * DAY, 12 * DAY));
+        assertThat(reader.getCheckpointKey(SYNC_MODE_KEYSET)).isNotEqualTo(first);
+        assertThat(reader.getCheckpointKey(SYNC_MODE_KEYSET)).isNotEqualTo(reader.getCheckpointKey(SYNC_MODE_CHANGE_STREAM));
+    }
+}
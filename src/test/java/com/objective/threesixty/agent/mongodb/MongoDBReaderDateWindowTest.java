@@ -0,0 +1,87 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBReaderDateWindowTest {
+
+    private static final Document QUERY = new Document("status", "active");
+
+    @Test
+    void sdkDefaultTimesLeaveTheQueryAlone() {
+        assertThat(MongoDBReader.setQueryDateFields(Long.MIN_VALUE, Long.MAX_VALUE, "last_modified", new Document()))
+                .isEmpty();
+        assertThat(MongoDBReader.setQueryDateFields(Long.MIN_VALUE, Long.MAX_VALUE, "last_modified", QUERY))
+                .isEqualTo(QUERY);
+        assertThat(MongoDBReader.setQueryDateFields(0L, 0L, "_id", QUERY)).isEqualTo(QUERY);
+    }
+
+    @Test
+    void boundedTimesAreCombinedWithTheQuery() {
+        Document window = MongoDBReader.setQueryDateFields(1000L, Long.MAX_VALUE, "last_modified", new Document());
+        assertThat(window).isEqualTo(new Document("last_modified", new Document("$gte", new Date(1000L))));
+
+        Document combined = MongoDBReader.setQueryDateFields(Long.MIN_VALUE, 2000L, "last_modified", QUERY);
+        assertThat(combined).isEqualTo(new Document("$and",
+                List.of(QUERY, new Document("last_modified", new Document("$lte", new Date(2000L))))));
+    }
+
+    @Test
+    void idWindowCoversWholeSeconds() {
+        Document window = MongoDBReader.setQueryDateFields(5_500L, 7_500L, "_id", new Document());
+        Document range = window.get("_id", Document.class);
+
+        ObjectId lower = range.get("$gte", ObjectId.class);
+        ObjectId upper = range.get("$lte", ObjectId.class);
+        assertThat(lower.getTimestamp()).isEqualTo(5);
+        assertThat(lower.toHexString()).endsWith("0000000000000000");
+        assertThat(upper.getTimestamp()).isEqualTo(7);
+        assertThat(upper.toHexString()).endsWith("ffffffffffffffff");
+    }
+
+    @Test
+    void idBoundsOutsideTheObjectIdRangeAreClamped() {
+        // Seconds past 2106 no longer fit an int and must not wrap around to an earlier time
+        ObjectId late = MongoDBReader.getObjectIdBound(new Date(0x1_0000_0000L * 1000L), true);
+        assertThat(late.toHexString()).isEqualTo("ffffffffffffffffffffffff");
+
+        ObjectId early = MongoDBReader.getObjectIdBound(new Date(-1000L), false);
+        assertThat(early.toHexString()).isEqualTo("000000000000000000000000");
+
+        // Seconds past 2038 are stored unsigned
+        ObjectId after2038 = MongoDBReader.getObjectIdBound(new Date(0x8000_0000L * 1000L), false);
+        assertThat(after2038.toHexString()).startsWith("80000000");
+    }
+}
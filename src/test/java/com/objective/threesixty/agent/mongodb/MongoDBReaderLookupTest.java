@@ -0,0 +1,144 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.objective.threesixty.Document;
+import com.objective.threesixty.MetadataType;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoDBReaderLookupTest {
+
+    private static final String COLLECTION = "documents";
+
+    @TempDir
+    Path checkpoints;
+
+    private MongoDBTestServer server;
+    private MongoDBReader reader;
+    private CustomParameters parameters;
+    private final List<String> docIds = new ArrayList<>();
+    private final String missing = new ObjectId().toHexString();
+
+    @BeforeEach
+    void start() {
+        server = new MongoDBTestServer(checkpoints);
+        for (int i = 0; i < 20; i++) {
+            ObjectId id = new ObjectId();
+            server.database().getCollection(COLLECTION).insertOne(new org.bson.Document(_ID, id)
+                    .append(SIMFLOFY_FILENAME_FIELD, "file-" + i + ".txt")
+                    .append(SIMFLOFY_CONTENT_TYPE_FIELD, "text/plain")
+                    .append(SIMFLOFY_LENGTH_FIELD, i));
+            docIds.add(id.toHexString());
+        }
+        reader = server.reader();
+        parameters = new CustomParameters(server.parameters(COLLECTION, false));
+        reader.init(parameters);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void getDocumentsLeavesOutMissingIds() {
+        Map<String, Document> documents = reader.getDocuments(List.of(docIds.get(0), missing, docIds.get(1)), parameters);
+
+        assertThat(documents).containsOnlyKeys(docIds.get(0), docIds.get(1));
+        assertThat(documents.get(docIds.get(1)).getName()).isEqualTo("file-1.txt");
+    }
+
+    @Test
+    void getDocumentMetadataReturnsEmptyMetadataForMissingIds() {
+        Map<String, Map<String, MetadataType>> metadata =
+                reader.getDocumentMetadata(List.of(docIds.get(0), missing), parameters);
+
+        assertThat(metadata).containsOnlyKeys(docIds.get(0), missing);
+        assertThat(metadata.get(docIds.get(0)).get(SIMFLOFY_FILENAME_FIELD).getString()).isEqualTo("file-0.txt");
+        assertThat(metadata.get(missing)).isEmpty();
+    }
+
+    @Test
+    void concurrentLookupsReturnTheirOwnDocuments() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Document>> lookups = new ArrayList<>();
+            for (String docId : docIds) {
+                lookups.add(executor.submit(() -> reader.getDocument(docId, parameters)));
+            }
+            Future<Document> notFound = executor.submit(() -> reader.getDocument(missing, parameters));
+
+            for (int i = 0; i < docIds.size(); i++) {
+                Document doc = lookups.get(i).get(10, TimeUnit.SECONDS);
+                assertThat(doc.getId()).isEqualTo(docIds.get(i));
+                assertThat(doc.getName()).isEqualTo("file-" + i + ".txt");
+            }
+            assertThat(notFound.get(10, TimeUnit.SECONDS)).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void invalidObjectIdOnlyFailsItsOwnLookup() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Document>> lookups = new ArrayList<>();
+            List<Future<Document>> invalid = new ArrayList<>();
+            for (String docId : docIds) {
+                lookups.add(executor.submit(() -> reader.getDocument(docId, parameters)));
+                invalid.add(executor.submit(() -> reader.getDocument("objectId:not-hex", parameters)));
+            }
+
+            for (int i = 0; i < docIds.size(); i++) {
+                assertThat(lookups.get(i).get(10, TimeUnit.SECONDS).getId()).isEqualTo(docIds.get(i));
+                Future<Document> failed = invalid.get(i);
+                assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
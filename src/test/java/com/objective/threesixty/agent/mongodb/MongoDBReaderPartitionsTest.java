@@ -0,0 +1,130 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants._ID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBReaderPartitionsTest {
+
+    private static MongoServer server;
+    private static MongoClient client;
+    private MongoCollection<BsonDocument> collection;
+
+    @BeforeAll
+    static void startServer() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create("mongodb://" + server.bindAndGetConnectionString().replaceFirst("^mongodb://", ""));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        client.close();
+        server.shutdown();
+    }
+
+    @BeforeEach
+    void createCollection() {
+        collection = client.getDatabase("test").getCollection("partitions", BsonDocument.class);
+        collection.deleteMany(new BsonDocument());
+
+        // Mostly ObjectIds, with a few ids of other types
+        List<org.bson.Document> docs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            docs.add(new org.bson.Document(_ID, new ObjectId()));
+            docs.add(new org.bson.Document(_ID, i));
+        }
+        docs.add(new org.bson.Document(_ID, 1000L));
+        docs.add(new org.bson.Document(_ID, 1000.5d));
+        docs.add(new org.bson.Document(_ID, "text"));
+        client.getDatabase("test").getCollection("partitions").insertMany(docs);
+    }
+
+    @Test
+    void objectIdRangesKeepIdsOfOtherTypes() {
+        List<BsonValue> sample = sample(new BsonDocument(_ID, new BsonDocument("$type", new org.bson.BsonString("objectId"))));
+        List<Bson> partitions = MongoDBReader.getPartitions(sample, 4);
+
+        assertThat(partitions).hasSize(5);
+        assertCoversEveryIdOnce(partitions);
+    }
+
+    @Test
+    void numberRangesKeepIdsOfOtherTypes() {
+        List<BsonValue> sample = sample(new BsonDocument(_ID, new BsonDocument("$type", new org.bson.BsonString("int"))));
+        List<Bson> partitions = MongoDBReader.getPartitions(sample, 4);
+
+        assertThat(partitions).hasSize(5);
+        assertCoversEveryIdOnce(partitions);
+    }
+
+    @Test
+    void sampleTooSmallToSplitHasNoPartitions() {
+        assertThat(MongoDBReader.getPartitions(List.of(), 4)).isEmpty();
+        assertThat(MongoDBReader.getPartitions(List.of(new BsonObjectId(), new BsonObjectId()), 1)).isEmpty();
+    }
+
+    // Get the sorted ids matching the filter, standing in for a sample of a single id type
+    private List<BsonValue> sample(BsonDocument filter) {
+        List<BsonValue> ids = new ArrayList<>();
+        collection.find(filter).sort(new BsonDocument(_ID, new BsonInt32(1))).forEach(doc -> ids.add(doc.get(_ID)));
+        return ids;
+    }
+
+    private void assertCoversEveryIdOnce(List<Bson> partitions) {
+        Set<BsonValue> seen = new HashSet<>();
+        long matched = 0;
+        for (Bson partition : partitions) {
+            for (BsonDocument doc : collection.find(partition)) {
+                assertThat(seen.add(doc.get(_ID))).as("id %s in more than one partition", doc.get(_ID)).isTrue();
+                matched++;
+            }
+        }
+        assertThat(matched).isEqualTo(collection.countDocuments());
+    }
+}
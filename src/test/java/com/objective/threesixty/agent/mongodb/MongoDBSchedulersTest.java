@@ -0,0 +1,62 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBSchedulersTest {
+
+    @Test
+    void sharedSchedulerIsNotDisposedOnShutdown() {
+        Scheduler shared = Schedulers.boundedElastic();
+        MongoDBSchedulers schedulers = new MongoDBSchedulers(new MongoDBProperties());
+
+        assertThat(schedulers.blocking()).isSameAs(shared);
+        schedulers.destroy();
+        assertThat(shared.isDisposed()).isFalse();
+        assertThat(Schedulers.boundedElastic()).isSameAs(shared);
+    }
+
+    @Test
+    void virtualThreadsLeaveTheGlobalSchedulersAlone() throws Exception {
+        Scheduler shared = Schedulers.boundedElastic();
+        MongoDBProperties properties = new MongoDBProperties();
+        properties.getVirtualThreads().setEnabled(true);
+        MongoDBSchedulers schedulers = new MongoDBSchedulers(properties);
+
+        // Tasks run on the blocking scheduler, whichever threads back it on this Java version
+        assertThat(schedulers.blocking().schedule(() -> { })).isNotNull();
+        assertThat(Schedulers.boundedElastic()).isSameAs(shared);
+
+        schedulers.destroy();
+        assertThat(shared.isDisposed()).isFalse();
+    }
+}
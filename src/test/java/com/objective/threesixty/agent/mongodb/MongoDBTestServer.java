@@ -0,0 +1,108 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.objective.threesixty.Value;
+import com.objective.threesixty.remoteagent.sdk.utils.CustomParameters;
+import com.objective.threesixty.remoteagent.sdk.utils.ReservedIdentifier;
+import com.objective.threesixty.remoteagent.sdk.utils.ValueUtils;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.objective.threesixty.agent.mongodb.MongoDBConstants.*;
+
+// Runs an in-memory MongoDB stand-in, with the beans and job parameters the reader and writer use against it
+final class MongoDBTestServer implements AutoCloseable {
+
+    static final String DB_NAME = "test";
+
+    final MongoDBProperties properties = new MongoDBProperties();
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final MongoDBMetrics metrics = new MongoDBMetrics(registry);
+    final MongoDBClientManager clientManager = new MongoDBClientManager(properties, metrics);
+    private final MongoServer server = new MongoServer(new MemoryBackend());
+    private final String uri = server.bindAndGetConnectionString();
+    private final MongoClient client = MongoClients.create(uri);
+    private final com.mongodb.reactivestreams.client.MongoClient reactiveClient =
+            com.mongodb.reactivestreams.client.MongoClients.create(uri);
+
+    MongoDBTestServer(Path checkpoints) {
+        properties.getCheckpoint().setDirectory(checkpoints);
+    }
+
+    MongoDatabase database() {
+        return client.getDatabase(DB_NAME);
+    }
+
+    com.mongodb.reactivestreams.client.MongoDatabase reactiveDatabase() {
+        return reactiveClient.getDatabase(DB_NAME);
+    }
+
+    MongoDBCollectionKey collectionKey(String collection) {
+        return new MongoDBCollectionKey(uri, DB_NAME, collection);
+    }
+
+    MongoDBReader reader() {
+        return new MongoDBReader(clientManager, new MongoDBCheckpointStore(properties), metrics,
+                new MongoDBSchedulers(properties), properties);
+    }
+
+    // Get the parameters of a job on the collection, the values can be replaced before the CustomParameters are built
+    Map<String, Value> parameters(String collection, boolean gridFS) {
+        Map<String, Value> parameters = new HashMap<>();
+        parameters.put(URI, ValueUtils.stringValue(uri));
+        parameters.put(DB, ValueUtils.stringValue(DB_NAME));
+        parameters.put(COLLECTION, ValueUtils.stringValue(collection));
+        parameters.put(USE_GRIDFS, ValueUtils.booleanValue(gridFS));
+        parameters.put(ID_FIELD, ValueUtils.stringValue(""));
+        parameters.put(QUERY, ValueUtils.stringValue("{}"));
+        return parameters;
+    }
+
+    static CustomParameters withDateRange(Map<String, Value> parameters, long startTime, long endTime) {
+        Map<String, Value> dated = new HashMap<>(parameters);
+        dated.put(ReservedIdentifier.START_TIME.getName(), ValueUtils.longValue(startTime));
+        dated.put(ReservedIdentifier.END_TIME.getName(), ValueUtils.longValue(endTime));
+        return new CustomParameters(dated);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        reactiveClient.close();
+        clientManager.destroy();
+        server.shutdownNow();
+    }
+}
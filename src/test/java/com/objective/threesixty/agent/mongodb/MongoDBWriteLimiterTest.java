@@ -0,0 +1,131 @@
+package com.objective.threesixty.agent.mongodb;
+
+/*-
+ * %%
+ * 3Sixty Remote Agent Example
+ * -
+ * Copyright (C) 2025 Objective Corporation Limited.
+ * -
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * %-
+ */
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoDBWriteLimiterTest {
+
+    private final AtomicInteger started = new AtomicInteger();
+
+    @Test
+    void writesBeyondMaxInFlightWait() {
+        MongoDBWriteLimiter limiter = new MongoDBWriteLimiter(2);
+        List<Sinks.One<Integer>> writes = new ArrayList<>();
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            Sinks.One<Integer> write = Sinks.one();
+            writes.add(write);
+            limiter.limit(write(write)).subscribe(value -> completed.incrementAndGet());
+        }
+        assertThat(started).hasValue(2);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(limiter.getWaiting()).isEqualTo(3);
+
+        // A finished write hands its permit to the next waiting one
+        writes.get(0).tryEmitValue(0);
+        assertThat(started).hasValue(3);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        writes.forEach(write -> write.tryEmitValue(1));
+        assertThat(completed).hasValue(5);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getWaiting()).isZero();
+    }
+
+    @Test
+    void failedWriteReleasesItsPermit() {
+        MongoDBWriteLimiter limiter = new MongoDBWriteLimiter(1);
+        AtomicBoolean failed = new AtomicBoolean();
+        limiter.limit(Mono.error(new IllegalStateException())).subscribe(value -> { }, e -> failed.set(true));
+
+        assertThat(failed).isTrue();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void cancellingAWaitingWriteRemovesItFromTheQueue() {
+        MongoDBWriteLimiter limiter = new MongoDBWriteLimiter(1);
+        Sinks.One<Integer> running = Sinks.one();
+        limiter.limit(write(running)).subscribe();
+        Disposable waiting = limiter.limit(write(Sinks.one())).subscribe();
+        assertThat(limiter.getWaiting()).isEqualTo(1);
+
+        waiting.dispose();
+        assertThat(limiter.getWaiting()).isZero();
+
+        // The permit is not handed to the cancelled write
+        running.tryEmitValue(1);
+        assertThat(started).hasValue(1);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void cancellingARunningWriteReturnsItsPermit() {
+        MongoDBWriteLimiter limiter = new MongoDBWriteLimiter(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Disposable running = limiter.limit(write(Sinks.one()).doOnCancel(() -> cancelled.set(true))).subscribe();
+        limiter.limit(write(Sinks.one())).subscribe();
+        assertThat(started).hasValue(1);
+
+        running.dispose();
+        assertThat(cancelled).isTrue();
+        assertThat(started).hasValue(2);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.getWaiting()).isZero();
+    }
+
+    @Test
+    void writesFinishingSynchronouslyDoNotRecurse() {
+        MongoDBWriteLimiter limiter = new MongoDBWriteLimiter(1);
+        Sinks.One<Integer> first = Sinks.one();
+        limiter.limit(write(first)).subscribe();
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 100_000; i++) {
+            limiter.limit(Mono.just(i)).subscribe(value -> completed.incrementAndGet());
+        }
+
+        // Each queued write completes while it is subscribed, starting the next one
+        first.tryEmitValue(0);
+        assertThat(completed).hasValue(100_000);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private Mono<Integer> write(Sinks.One<Integer> result) {
+        return result.asMono().doOnSubscribe(subscription -> started.incrementAndGet());
+    }
+}